@@ -0,0 +1,161 @@
+package pt.ama.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.qute.Engine;
+import pt.ama.config.JsonNodeValueResolver;
+import pt.ama.dto.DocumentRequest;
+import pt.ama.model.DocumentType;
+import pt.ama.model.Template;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dados partilhados pelos benchmarks JMH: payloads JSON de tamanho variável, templates de
+ * complexidade variável e um Engine Qute configurado como o da aplicação.
+ */
+public final class BenchmarkData {
+
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Complexidade do template: SIMPLE tem um ciclo sobre as linhas; NESTED acrescenta
+     * condições, acesso a objetos aninhados e um ciclo interno por linha.
+     */
+    public enum Complexity {
+        SIMPLE,
+        NESTED
+    }
+
+    private static final String SIMPLE_TEMPLATE = """
+            <html><body>
+            <h1>Fatura {numero}</h1>
+            <p>Cliente: {cliente.nome} ({cliente.nif})</p>
+            <table>
+            {#for item in items}
+            <tr><td>{item.descricao}</td><td>{item.quantidade}</td><td>{item.preco}</td></tr>
+            {/for}
+            </table>
+            <p>Total: {total}</p>
+            </body></html>
+            """;
+
+    private static final String NESTED_TEMPLATE = """
+            <html><head><style>td { padding: 2px; } .destaque { font-weight: bold; }</style></head><body>
+            <h1>Fatura {numero}</h1>
+            <p>Cliente: {cliente.nome} ({cliente.nif})</p>
+            <p>Morada: {cliente.morada.rua}, {cliente.morada.codigoPostal} {cliente.morada.cidade}</p>
+            <table>
+            {#for item in items}
+            <tr{#if item.quantidade > 5} class="destaque"{/if}>
+            <td>{item_count}</td><td>{item.descricao}</td><td>{item.quantidade}</td><td>{item.preco}</td>
+            <td>{#for tag in item.tags}{tag}{#if tag_hasNext}, {/if}{/for}</td>
+            <td>{#if item.desconto}{item.desconto.percentagem}%{#else}-{/if}</td>
+            </tr>
+            {/for}
+            </table>
+            {#if total > 1000}<p class="destaque">Total: {total}</p>{#else}<p>Total: {total}</p>{/if}
+            </body></html>
+            """;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Engine Qute com os mesmos value resolvers usados pela aplicação para dados JsonNode
+     */
+    public static Engine engine() {
+        return Engine.builder()
+                .addDefaults()
+                .addValueResolver(new JsonNodeValueResolver())
+                .build();
+    }
+
+    public static String templateContent(Complexity complexity) {
+        return complexity == Complexity.NESTED ? NESTED_TEMPLATE : SIMPLE_TEMPLATE;
+    }
+
+    public static Template template(String name, Complexity complexity, DocumentType type) {
+        Template template = new Template();
+        template.setName(name);
+        template.setNameKey(Template.toNameKey(name));
+        template.setType(type);
+        template.setContent(templateContent(complexity));
+        template.setVersion(BigDecimal.ONE);
+        template.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 0, 0));
+
+        Template.TemplateMetadata metadata = new Template.TemplateMetadata();
+        metadata.setRequiredFields(requiredFields());
+        template.setMetadata(metadata);
+        return template;
+    }
+
+    public static List<String> requiredFields() {
+        List<String> fields = new ArrayList<>();
+        fields.add("numero");
+        fields.add("cliente.nome");
+        fields.add("cliente.nif");
+        fields.add("cliente.morada.cidade");
+        fields.add("items[*].descricao");
+        fields.add("items[*].preco");
+        fields.add("total");
+        return fields;
+    }
+
+    /**
+     * Payload de fatura com o número de linhas indicado; inclui os campos "to" e "subject"
+     * exigidos pelos geradores de email e SMS.
+     */
+    public static ObjectNode payload(int rows) {
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        root.put("to", "cliente@example.pt");
+        root.put("subject", "Fatura FT 2025/" + rows);
+        root.put("numero", "FT 2025/" + rows);
+
+        ObjectNode cliente = root.putObject("cliente");
+        cliente.put("nome", "João Silva");
+        cliente.put("nif", "123456789");
+        cliente.putObject("morada")
+                .put("rua", "Rua Augusta 100")
+                .put("codigoPostal", "1100-053")
+                .put("cidade", "Lisboa");
+
+        ArrayNode items = root.putArray("items");
+        double total = 0;
+        for (int i = 0; i < rows; i++) {
+            double preco = 10 + (i % 90) * 1.25;
+            ObjectNode item = items.addObject()
+                    .put("descricao", "Artigo " + i + " - descrição com acentuação")
+                    .put("quantidade", 1 + i % 10)
+                    .put("preco", preco);
+            item.putArray("tags").add("categoria-" + (i % 5)).add("lote-" + (i % 3));
+            if (i % 4 == 0) {
+                item.putObject("desconto").put("percentagem", 5 + i % 20);
+            }
+            total += preco * (1 + i % 10);
+        }
+        root.put("total", total);
+        return root;
+    }
+
+    public static DocumentRequest request(String templateName, ObjectNode data) {
+        DocumentRequest request = new DocumentRequest();
+        request.setTemplateName(templateName);
+        request.setData(data);
+        return request;
+    }
+
+    /**
+     * Os geradores registam cada geração em INFO; nos benchmarks esse output só distorce os resultados
+     */
+    public static void quietLogging() {
+        Logger.getLogger("pt.ama").setLevel(Level.WARNING);
+        Logger.getLogger("com.itextpdf").setLevel(Level.WARNING);
+    }
+}
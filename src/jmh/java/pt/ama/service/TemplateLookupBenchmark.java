@@ -0,0 +1,64 @@
+package pt.ama.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.ama.benchmark.BenchmarkData;
+import pt.ama.model.DocumentType;
+import pt.ama.model.Template;
+import pt.ama.repository.TemplateRepository;
+import pt.ama.service.cache.BenchmarkCaches;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark da obtenção do template por nome: TemplateService com o TemplateCache vs acesso
+ * direto ao repositório. O repositório é um mock, pelo que o custo medido sem cache é apenas
+ * o da chamada (sem I/O ao MongoDB); serve de referência para o overhead da cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateLookupBenchmark {
+
+    private static final String TEMPLATE_NAME = "Fatura-Mensal";
+
+    private TemplateRepository templateRepository;
+    private TemplateService templateService;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.quietLogging();
+
+        Template template = BenchmarkData.template(TEMPLATE_NAME, BenchmarkData.Complexity.SIMPLE, DocumentType.PDF);
+        templateRepository = mock(TemplateRepository.class);
+        when(templateRepository.findByName(TEMPLATE_NAME)).thenReturn(template);
+
+        templateService = new TemplateService();
+        templateService.templateRepository = templateRepository;
+        templateService.templateCache = BenchmarkCaches.templateCache();
+    }
+
+    @Benchmark
+    public Template repositoryLookup() {
+        return templateRepository.findByName(TEMPLATE_NAME);
+    }
+
+    @Benchmark
+    public Template cachedLookup() {
+        return templateService.findByName(TEMPLATE_NAME);
+    }
+}
@@ -0,0 +1,34 @@
+package pt.ama.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.qute.Engine;
+
+import java.time.Duration;
+
+/**
+ * Cria as caches da aplicação fora do contentor CDI, com a configuração por omissão,
+ * para serem usadas nos benchmarks
+ */
+public final class BenchmarkCaches {
+
+    private BenchmarkCaches() {
+    }
+
+    public static TemplateCache templateCache() {
+        TemplateCache cache = new TemplateCache();
+        cache.meterRegistry = new SimpleMeterRegistry();
+        cache.maxSize = 200;
+        cache.ttl = Duration.ofMinutes(5);
+        cache.init();
+        return cache;
+    }
+
+    public static CompiledTemplateCache compiledTemplateCache(Engine engine) {
+        CompiledTemplateCache cache = new CompiledTemplateCache();
+        cache.quteEngine = engine;
+        cache.meterRegistry = new SimpleMeterRegistry();
+        cache.maxSize = 500;
+        cache.init();
+        return cache;
+    }
+}
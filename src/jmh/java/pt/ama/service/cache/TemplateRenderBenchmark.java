@@ -0,0 +1,80 @@
+package pt.ama.service.cache;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.qute.Engine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.ama.benchmark.BenchmarkData;
+import pt.ama.model.DocumentType;
+import pt.ama.model.Template;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark do processamento Qute: parse do template em cada pedido vs template compilado do
+ * CompiledTemplateCache, e dados convertidos para Map (como fazia o convertJsonNodeToMap) vs
+ * o JsonNode percorrido diretamente pelo JsonNodeValueResolver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRenderBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int rows;
+
+    @Param({"SIMPLE", "NESTED"})
+    BenchmarkData.Complexity complexity;
+
+    private Engine engine;
+    private Template template;
+    private CompiledTemplateCache compiledTemplateCache;
+    private ObjectNode data;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.quietLogging();
+
+        engine = BenchmarkData.engine();
+        template = BenchmarkData.template("Fatura-" + complexity, complexity, DocumentType.PDF);
+        compiledTemplateCache = BenchmarkCaches.compiledTemplateCache(engine);
+        data = BenchmarkData.payload(rows);
+    }
+
+    @Benchmark
+    public String parseAndRender() {
+        return engine.parse(template.getContent()).data(data).render();
+    }
+
+    @Benchmark
+    public String cachedRender() {
+        return compiledTemplateCache.getOrCompile(template).data(data).render();
+    }
+
+    /**
+     * Conversão JsonNode -> Map anterior à renderização direta sobre o JsonNode
+     */
+    @Benchmark
+    public Map<?, ?> convertJsonNodeToMap() {
+        return BenchmarkData.OBJECT_MAPPER.convertValue(data, Map.class);
+    }
+
+    @Benchmark
+    public String cachedRenderOverMap() {
+        Map<?, ?> dataMap = BenchmarkData.OBJECT_MAPPER.convertValue(data, Map.class);
+        return compiledTemplateCache.getOrCompile(template).data(dataMap).render();
+    }
+}
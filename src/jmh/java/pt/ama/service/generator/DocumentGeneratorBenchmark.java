@@ -0,0 +1,91 @@
+package pt.ama.service.generator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.ama.benchmark.BenchmarkData;
+import pt.ama.dto.DocumentRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark dos geradores de documento sobre conteúdo já processado pelo Qute.
+ * O SMS usa sempre uma mensagem curta, porque o gerador rejeita conteúdo acima de 1600 caracteres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentGeneratorBenchmark {
+
+    private static final String SMS_CONTENT =
+            "A sua fatura FT 2025/10 no valor de 150,00 EUR está disponível. Pagamento até 31/01.";
+
+    @Param({"10", "1000"})
+    int rows;
+
+    @Param({"SIMPLE", "NESTED"})
+    BenchmarkData.Complexity complexity;
+
+    private PdfGenerator pdfGenerator;
+    private EmailGenerator emailGenerator;
+    private SmsGenerator smsGenerator;
+    private DocumentRequest request;
+    private DocumentRequest smsRequest;
+    private String content;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.quietLogging();
+
+        PdfConverterProperties converterProperties = new PdfConverterProperties();
+        converterProperties.fontDirectories = Optional.of(List.of());
+        converterProperties.init();
+
+        pdfGenerator = new PdfGenerator();
+        pdfGenerator.converterProperties = converterProperties;
+        emailGenerator = new EmailGenerator();
+        smsGenerator = new SmsGenerator();
+
+        request = BenchmarkData.request("Fatura-" + complexity, BenchmarkData.payload(rows));
+        smsRequest = BenchmarkData.request("Aviso-Fatura", BenchmarkData.payload(0).put("to", "+351912345678"));
+        content = BenchmarkData.engine()
+                .parse(BenchmarkData.templateContent(complexity))
+                .data(request.getData())
+                .render();
+    }
+
+    @Benchmark
+    public byte[] pdf() {
+        return generate(pdfGenerator, content, request);
+    }
+
+    @Benchmark
+    public byte[] email() {
+        return generate(emailGenerator, content, request);
+    }
+
+    @Benchmark
+    public byte[] sms() {
+        return generate(smsGenerator, SMS_CONTENT, smsRequest);
+    }
+
+    private static byte[] generate(DocumentGenerator generator, String content, DocumentRequest request) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        generator.generate((CharSequence) content, request, output);
+        return output.toByteArray();
+    }
+}
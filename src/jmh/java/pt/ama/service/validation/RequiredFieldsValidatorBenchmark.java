@@ -0,0 +1,122 @@
+package pt.ama.service.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH da validação de campos obrigatórios: conversão para Map + split por regex em cada
+ * pedido (implementação anterior) vs RequiredFieldSet compilado sobre o JsonNode.
+ * Executar com: ./mvnw -Pbenchmark verify -Djmh.args="RequiredFieldsValidatorBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequiredFieldsValidatorBenchmark {
+
+    private static final int ITEMS = 50;
+
+    @Param({"100", "250"})
+    int fieldCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JsonNode data;
+    private List<String> dottedFields;
+    private RequiredFieldSet compiledDottedFields;
+    private RequiredFieldSet compiledWildcardFields;
+
+    @Setup
+    public void setUp() {
+        ObjectNode root = objectMapper.createObjectNode();
+        dottedFields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            String section = "secao" + (i % 10);
+            ObjectNode node = root.has(section) ? (ObjectNode) root.get(section) : root.putObject(section);
+            node.putObject("grupo" + i).put("valor", "valor " + i);
+            dottedFields.add(section + ".grupo" + i + ".valor");
+        }
+
+        ArrayNode items = root.putArray("items");
+        for (int i = 0; i < ITEMS; i++) {
+            items.addObject().put("descricao", "Item " + i).put("price", i * 1.5).put("qty", i);
+        }
+
+        List<String> wildcardFields = new ArrayList<>(dottedFields);
+        wildcardFields.add("items[*].price");
+        wildcardFields.add("items[*].qty");
+
+        data = root;
+        compiledDottedFields = RequiredFieldSet.compile(dottedFields);
+        compiledWildcardFields = RequiredFieldSet.compile(wildcardFields);
+    }
+
+    @Benchmark
+    public List<String> legacyMapAndSplit() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> dataMap = objectMapper.convertValue(data, Map.class);
+        List<String> missing = new ArrayList<>();
+        for (String field : dottedFields) {
+            if (!legacyIsFieldPresent(field, dataMap)) {
+                missing.add(field);
+            }
+        }
+        return missing;
+    }
+
+    @Benchmark
+    public List<String> compiledOnJsonNode() {
+        return compiledDottedFields.findMissing(data);
+    }
+
+    @Benchmark
+    public List<String> compiledOnJsonNodeWithWildcards() {
+        return compiledWildcardFields.findMissing(data);
+    }
+
+    @Benchmark
+    public RequiredFieldSet compileOnly() {
+        return RequiredFieldSet.compile(dottedFields);
+    }
+
+    /**
+     * Reproduz a verificação anterior ao RequiredFieldSet
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean legacyIsFieldPresent(String fieldPath, Map<String, Object> dataMap) {
+        Object currentValue = dataMap;
+        for (String fieldPart : fieldPath.split("\\.")) {
+            if (!(currentValue instanceof Map)) {
+                return false;
+            }
+            Map<String, Object> currentMap = (Map<String, Object>) currentValue;
+            if (!currentMap.containsKey(fieldPart)) {
+                return false;
+            }
+            currentValue = currentMap.get(fieldPart);
+            if (currentValue == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,198 @@
+package pt.ama.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import io.quarkus.qute.CompletedStage;
+import io.quarkus.qute.EngineConfiguration;
+import io.quarkus.qute.EvalContext;
+import io.quarkus.qute.Expression;
+import io.quarkus.qute.Results;
+import io.quarkus.qute.ValueResolver;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Permite ao Qute navegar diretamente nos dados JSON do pedido, sem os converter antes para Map/List.
+ * Os objetos são resolvidos por nome de campo com a mesma semântica de um Map (keys, values, size,
+ * isEmpty, get, containsKey) e, tal como um Map, iterados em #for como entradas key/value; os arrays
+ * são expostos como listas só de leitura e os valores simples (texto, números, booleanos, null) são
+ * devolvidos como os respetivos tipos Java.
+ */
+@EngineConfiguration
+public class JsonNodeValueResolver implements ValueResolver {
+
+    @Override
+    public int getPriority() {
+        return DEFAULT_PRIORITY + 1;
+    }
+
+    @Override
+    public boolean appliesTo(EvalContext context) {
+        Object base = context.getBase();
+        return base instanceof ObjectNode || base instanceof JsonObjectMap;
+    }
+
+    @Override
+    public CompletionStage<Object> resolve(EvalContext context) {
+        ObjectNode object = context.getBase() instanceof JsonObjectMap map
+            ? map.object
+            : (ObjectNode) context.getBase();
+        String name = context.getName();
+        List<Expression> params = context.getParams();
+
+        switch (name) {
+            case "keys", "keySet":
+                List<String> keys = new ArrayList<>(object.size());
+                object.fieldNames().forEachRemaining(keys::add);
+                return CompletedStage.of(keys);
+            case "values":
+                List<Object> values = new ArrayList<>(object.size());
+                object.elements().forEachRemaining(value -> values.add(unwrap(value)));
+                return CompletedStage.of(values);
+            case "size":
+                return CompletedStage.of(object.size());
+            case "empty", "isEmpty":
+                return CompletedStage.of(object.isEmpty());
+            case "get":
+                if (params.size() == 1) {
+                    return context.evaluate(params.get(0))
+                        .thenApply(key -> key != null ? unwrap(object.get(key.toString())) : null);
+                }
+                break;
+            case "containsKey":
+                if (params.size() == 1) {
+                    return context.evaluate(params.get(0))
+                        .thenApply(key -> key != null && object.has(key.toString()));
+                }
+                break;
+            default:
+                break;
+        }
+
+        JsonNode value = object.get(name);
+        return value != null ? CompletedStage.of(unwrap(value)) : Results.notFound(context);
+    }
+
+    /**
+     * Converte um nó JSON no valor visto pelo template. Objetos e arrays não são copiados.
+     * Os objetos são devolvidos como Map porque o ObjectNode é Iterable dos valores: em #for o Qute
+     * percorreria os nós em bruto em vez das entradas key/value.
+     */
+    static Object unwrap(JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+        if (node instanceof ObjectNode object) {
+            return new JsonObjectMap(object);
+        }
+        if (node instanceof ArrayNode array) {
+            return new JsonArrayList(array);
+        }
+        if (node.isTextual()) {
+            return node.textValue();
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node instanceof POJONode pojo) {
+            return pojo.getPojo();
+        }
+        return node.asText();
+    }
+
+    /**
+     * Vista de lista sobre um ArrayNode: os elementos são convertidos à medida que são lidos,
+     * pelo que #for, size, get, first/last e afins funcionam como numa List sem copiar o array.
+     */
+    static final class JsonArrayList extends AbstractList<Object> implements RandomAccess {
+
+        private final ArrayNode array;
+
+        JsonArrayList(ArrayNode array) {
+            this.array = array;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= array.size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return unwrap(array.get(index));
+        }
+
+        @Override
+        public int size() {
+            return array.size();
+        }
+    }
+
+    /**
+     * Vista de Map sobre um ObjectNode, com os valores convertidos à medida que são lidos.
+     * Os campos continuam a ser resolvidos por este resolver; a vista serve sobretudo a iteração
+     * em #for, que produz entradas com key e value como um Map.
+     */
+    static final class JsonObjectMap extends AbstractMap<String, Object> {
+
+        private final ObjectNode object;
+
+        JsonObjectMap(ObjectNode object) {
+            this.object = object;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return key != null ? unwrap(object.get(key.toString())) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key != null && object.has(key.toString());
+        }
+
+        @Override
+        public int size() {
+            return object.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return fields.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Map.Entry<String, JsonNode> field = fields.next();
+                            return new SimpleImmutableEntry<>(field.getKey(), unwrap(field.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return object.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package pt.ama.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsyncBatchResponse {
+    private String status;
+    private int accepted;
+    private List<String> eventIds; // Pela ordem dos itens do pedido
+    private List<String> failedEventIds;
+}
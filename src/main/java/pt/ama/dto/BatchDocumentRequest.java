@@ -0,0 +1,45 @@
+package pt.ama.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pt.ama.enums.CallbackDeliveryMode;
+import pt.ama.util.BoundedJsonNodeDeserializer;
+
+import java.util.List;
+
+/**
+ * Pedido de geração em lote: um template, várias entradas de dados
+ */
+@Data
+public class BatchDocumentRequest {
+    @NotBlank(message = "Template name is required")
+    private String templateName;
+
+    @NotEmpty(message = "Items are required")
+    @Valid
+    private List<Item> items;
+
+    private DocumentRequest.PdfOptions options;
+
+    // Apenas para lotes assíncronos (Kafka): callback de cada item
+    private String callbackUrl;
+    private CallbackDeliveryMode callbackDelivery;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private String filename; // Opcional; por omissão <filename do lote ou template>-<índice>
+
+        @NotNull(message = "Data is required")
+        @JsonDeserialize(using = BoundedJsonNodeDeserializer.class)
+        private JsonNode data;
+    }
+}
@@ -1,9 +1,12 @@
 package pt.ama.dto;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
+import pt.ama.enums.CallbackDeliveryMode;
+import pt.ama.util.BoundedJsonNodeDeserializer;
 
 @Data
 @AllArgsConstructor
@@ -11,8 +14,12 @@ import lombok.NoArgsConstructor;
 public class DocumentGenerationMessage {
     private String eventId;
     private String templateName;
+    @JsonDeserialize(using = BoundedJsonNodeDeserializer.class)
     private JsonNode data;
     private String receiver;
     private String callbackUrl;
     private DocumentRequest.PdfOptions options;
+    private CallbackDeliveryMode callbackDelivery; // Opcional; por omissão usa callback.delivery.default-mode
+    private Long enqueuedAt; // Epoch millis da publicação no Kafka
+    private Long dequeuedAt; // Epoch millis da leitura pelo consumer (não é republicado)
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package pt.ama.dto;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import pt.ama.enums.CallbackDeliveryMode;
+import pt.ama.util.BoundedJsonNodeDeserializer;
 
 @Data
 public class DocumentRequest {
@@ -11,10 +14,12 @@ public class DocumentRequest {
     private String templateName;
 
     @NotNull(message = "Data is required")
+    @JsonDeserialize(using = BoundedJsonNodeDeserializer.class)
     private JsonNode data;
     
     private String receiver;
     private String callbackUrl;
+    private CallbackDeliveryMode callbackDelivery;
     private boolean async = false;
     private PdfOptions options;
 
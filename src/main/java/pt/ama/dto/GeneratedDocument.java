@@ -0,0 +1,22 @@
+package pt.ama.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pt.ama.model.DocumentType;
+
+/**
+ * Resultado de uma geração: conteúdo e metadados resolvidos a partir do template usado
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class GeneratedDocument {
+    private byte[] content;
+    private String filename;
+    private String contentType;
+    private String templateName;
+    private DocumentType documentType;
+}
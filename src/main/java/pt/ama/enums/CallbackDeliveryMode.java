@@ -0,0 +1,12 @@
+package pt.ama.enums;
+
+/**
+ * Forma de entrega do documento no callback: INLINE envia o documento em Base64 no corpo;
+ * REFERENCE envia apenas um link de download assinado e com validade.
+ */
+public enum CallbackDeliveryMode {
+
+    INLINE,
+    REFERENCE
+
+}
@@ -0,0 +1,34 @@
+package pt.ama.enums;
+
+/**
+ * Codificação das mensagens Kafka de geração de documentos, identificada pelo cabeçalho content-type.
+ * SMILE e CBOR são formatos binários do modelo de dados JSON: mais compactos e mais rápidos de ler.
+ */
+public enum MessageEncoding {
+
+    JSON("application/json"),
+    SMILE("application/x-jackson-smile"),
+    CBOR("application/cbor");
+
+    private final String contentType;
+
+    MessageEncoding(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Devolve a codificação correspondente ao content-type, ou null se não for reconhecido
+     */
+    public static MessageEncoding fromContentType(String contentType) {
+        for (MessageEncoding encoding : values()) {
+            if (encoding.contentType.equalsIgnoreCase(contentType)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package pt.ama.exception;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+/**
+ * Exceção lançada durante a desserialização quando os dados de um pedido excedem os limites
+ * configurados (tamanho, profundidade, tamanho de arrays ou de strings).
+ * É uma JsonMappingException para interromper o parsing no ponto em que o limite é ultrapassado.
+ */
+public class DataLimitExceededException extends JsonMappingException {
+
+    public DataLimitExceededException(JsonParser parser, String message) {
+        super(parser, String.format("Dados excedem o limite permitido: %s", message));
+    }
+}
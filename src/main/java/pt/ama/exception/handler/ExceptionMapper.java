@@ -56,6 +56,11 @@ public class ExceptionMapper {
         return mapException(e, Response.Status.BAD_REQUEST);
     }
 
+    @ServerExceptionMapper
+    public RestResponse<JsonApiResponseModel<Void>> mapDataLimitExceededException(DataLimitExceededException e) {
+        return mapException(e, Response.Status.REQUEST_ENTITY_TOO_LARGE);
+    }
+
     @ServerExceptionMapper
     public RestResponse<JsonApiResponseModel<Void>> mapBadRequestException(BadRequestException e) {
         return mapException(e, Response.Status.BAD_REQUEST);
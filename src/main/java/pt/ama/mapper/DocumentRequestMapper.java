@@ -18,6 +18,7 @@ public class DocumentRequestMapper {
         message.setData(request.getData());
         message.setReceiver(request.getReceiver());
         message.setCallbackUrl(request.getCallbackUrl());
+        message.setCallbackDelivery(request.getCallbackDelivery());
         message.setOptions(request.getOptions());
 
         return message;
@@ -33,6 +34,7 @@ public class DocumentRequestMapper {
         request.setData(message.getData());
         request.setReceiver(message.getReceiver());
         request.setCallbackUrl(message.getCallbackUrl());
+        request.setCallbackDelivery(message.getCallbackDelivery());
         request.setOptions(message.getOptions());
         request.setAsync(true); // Assuming conversion from message implies async processing
 
@@ -0,0 +1,44 @@
+package pt.ama.model;
+
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Callback pendente de entrega. Persistido antes do envio para sobreviver a reinícios;
+ * removido após entrega com sucesso.
+ */
+@Data
+@MongoEntity(collection = "callback_outbox")
+public class CallbackOutboxEntry {
+    @BsonId
+    private ObjectId id;
+
+    private String eventId;
+    private String callbackUrl;
+    private CallbackType type;
+    private String filename;
+    private String contentType;
+    private ObjectId documentFileId; // Entrega inline: o conteúdo fica em GridFS, não no outbox (limite de 16 MB do MongoDB)
+    private String downloadUrl; // Entrega por referência: o documento fica no DocumentStore
+    private Long size;
+    private Instant expiresAt;
+    private String errorMessage;
+    private CallbackOutboxStatus status;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime leaseUntil; // Enquanto válido, apenas a instância que o obteve pode enviar
+    private Map<String, String> traceContext; // Contexto de trace (traceparent) do pedido que originou o callback
+
+    public enum CallbackType {
+        DOCUMENT,
+        ERROR
+    }
+}
@@ -0,0 +1,6 @@
+package pt.ama.model;
+
+public enum CallbackOutboxStatus {
+    PENDING,
+    FAILED
+}
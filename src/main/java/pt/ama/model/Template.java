@@ -10,6 +10,7 @@ import org.bson.types.ObjectId;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 @Data
 @MongoEntity(collection = "templates")
@@ -20,6 +21,8 @@ public class Template {
     @NotBlank(message = "Name is mandatory")
     private String name;
 
+    private String nameKey; // Nome normalizado (minúsculas) usado nas buscas indexadas
+
     @NotNull(message = "Type is mandatory")
     private DocumentType type;
 
@@ -38,6 +41,13 @@ public class Template {
     private TemplateMetadata metadata;
     private DocumentStatus status;
 
+    /**
+     * Normaliza o nome do template para a chave de busca (nameKey)
+     */
+    public static String toNameKey(String name) {
+        return name != null ? name.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
     @Data
     public static class TemplateMetadata {
         @NotBlank(message = "Required fields are mandatory")
@@ -0,0 +1,59 @@
+package pt.ama.repository;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.model.Filters;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.jboss.logging.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Conteúdo dos documentos de callbacks entregues inline, guardado em GridFS na mesma base de dados
+ * do outbox: qualquer instância que obtenha o lease de um callback consegue ler o documento, mesmo
+ * após um reinício, sem o limite de 16 MB de um documento MongoDB.
+ */
+@ApplicationScoped
+public class CallbackDocumentRepository {
+
+    private static final Logger LOG = Logger.getLogger(CallbackDocumentRepository.class);
+    private static final String BUCKET = "callback_documents";
+
+    @Inject
+    CallbackOutboxRepository outboxRepository;
+
+    private GridFSBucket bucket;
+
+    @PostConstruct
+    void init() {
+        bucket = GridFSBuckets.create(outboxRepository.mongoDatabase(), BUCKET);
+    }
+
+    public ObjectId store(byte[] content, String filename) {
+        return bucket.uploadFromStream(filename != null ? filename : "document", new ByteArrayInputStream(content));
+    }
+
+    public boolean exists(ObjectId id) {
+        return bucket.find(Filters.eq("_id", id)).first() != null;
+    }
+
+    /**
+     * Abre o conteúdo para leitura; lança MongoGridFSException se o ficheiro não existir
+     */
+    public InputStream open(ObjectId id) {
+        return bucket.openDownloadStream(id);
+    }
+
+    public void delete(ObjectId id) {
+        try {
+            bucket.delete(id);
+        } catch (MongoGridFSException e) {
+            LOG.debugf("Callback document %s already removed: %s", id, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package pt.ama.repository;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import io.quarkus.mongodb.panache.PanacheMongoRepositoryBase;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.types.ObjectId;
+import pt.ama.model.CallbackOutboxEntry;
+import pt.ama.model.CallbackOutboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ApplicationScoped
+public class CallbackOutboxRepository implements PanacheMongoRepositoryBase<CallbackOutboxEntry, ObjectId> {
+
+    /**
+     * Callbacks pendentes cuja próxima tentativa já venceu e cujo lease expirou
+     */
+    public List<CallbackOutboxEntry> findDue(LocalDateTime now, int limit) {
+        return find("status = ?1 and nextAttemptAt <= ?2 and leaseUntil <= ?2",
+                Sort.ascending("nextAttemptAt"), CallbackOutboxStatus.PENDING, now)
+                .page(0, limit)
+                .list();
+    }
+
+    /**
+     * Obtém o lease de um callback de forma atómica, evitando envios duplicados entre instâncias
+     */
+    public boolean claim(ObjectId id, LocalDateTime now, LocalDateTime leaseUntil) {
+        return mongoCollection().updateOne(
+                Filters.and(
+                        Filters.eq("_id", id),
+                        Filters.eq("status", CallbackOutboxStatus.PENDING.name()),
+                        Filters.lte("leaseUntil", now)),
+                Updates.set("leaseUntil", leaseUntil))
+                .getModifiedCount() > 0;
+    }
+}
@@ -0,0 +1,183 @@
+package pt.ama.repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Garante, no arranque, os índices necessários às consultas do TemplateRepository
+ * e reporta divergências entre os índices esperados e os existentes na coleção.
+ */
+@ApplicationScoped
+public class TemplateIndexBootstrapper {
+
+    private static final Logger LOG = Logger.getLogger(TemplateIndexBootstrapper.class);
+    private static final String ID_INDEX = "_id_";
+
+    /**
+     * Índices esperados na coleção de templates:
+     * findByName/existsByName, findByTemplateVersion, findByType, findByCategory, findByOwner e findByTags.
+     * O índice sobre tags é multikey, pois tags é um array.
+     */
+    static final List<IndexSpec> EXPECTED_INDEXES = List.of(
+            new IndexSpec("nameKey_active_unique", keys("nameKey", "active"), true, new Document("active", true)),
+            new IndexSpec("name_active", keys("name", "active"), false, null),
+            new IndexSpec("type_active", keys("type", "active"), false, null),
+            new IndexSpec("category_active", keys("category", "active"), false, null),
+            new IndexSpec("owner_active", keys("owner", "active"), false, null),
+            new IndexSpec("tags_active", keys("tags", "active"), false, null)
+    );
+
+    @Inject
+    TemplateRepository templateRepository;
+
+    @Inject
+    TemplateNameKeyMigration nameKeyMigration;
+
+    @ConfigProperty(name = "template.indexes.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "template.indexes.create-missing", defaultValue = "true")
+    boolean createMissing;
+
+    @ConfigProperty(name = "template.indexes.fail-on-drift", defaultValue = "false")
+    boolean failOnDrift;
+
+    @ConfigProperty(name = "template.migration.name-key.enabled", defaultValue = "true")
+    boolean nameKeyMigrationEnabled;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            LOG.debug("Verificação de índices da coleção de templates desativada");
+            return;
+        }
+
+        List<String> problems;
+        try {
+            if (nameKeyMigrationEnabled) {
+                nameKeyMigration.migrate();
+            }
+            problems = ensureIndexes();
+        } catch (Exception e) {
+            problems = List.of("Falha ao verificar índices: " + e.getMessage());
+            LOG.errorf(e, "Erro ao verificar índices da coleção de templates");
+        }
+
+        if (problems.isEmpty()) {
+            LOG.info("Índices da coleção de templates verificados com sucesso");
+            return;
+        }
+
+        String report = String.join("; ", problems);
+        if (failOnDrift) {
+            throw new IllegalStateException("Índices da coleção de templates inconsistentes: " + report);
+        }
+        LOG.warnf("Índices da coleção de templates inconsistentes: %s", report);
+    }
+
+    /**
+     * Cria os índices em falta (se configurado) e devolve a lista de divergências encontradas
+     */
+    public List<String> ensureIndexes() {
+        MongoCollection<Document> collection = templateRepository.mongoCollection().withDocumentClass(Document.class);
+        Map<String, Document> existing = new LinkedHashMap<>();
+        for (Document index : collection.listIndexes()) {
+            existing.put(index.getString("name"), index);
+        }
+
+        List<String> problems = new ArrayList<>();
+
+        for (IndexSpec spec : EXPECTED_INDEXES) {
+            Document current = findByKeys(existing, spec.keys());
+
+            if (current == null && existing.containsKey(spec.name())) {
+                problems.add(String.format("índice '%s' existe com chaves %s (esperado %s)",
+                        spec.name(), existing.get(spec.name()).get("key"), spec.keys().toJson()));
+                continue;
+            }
+
+            if (current == null) {
+                if (createMissing) {
+                    collection.createIndex(spec.keys(), spec.toOptions());
+                    LOG.infof("Índice criado na coleção de templates: %s", spec.name());
+                } else {
+                    problems.add(String.format("índice '%s' em falta", spec.name()));
+                }
+                continue;
+            }
+
+            if (!spec.matchesOptions(current)) {
+                problems.add(String.format("índice '%s' com opções divergentes (unique=%s, partialFilterExpression=%s)",
+                        current.getString("name"), current.getBoolean("unique", false), current.get("partialFilterExpression")));
+            }
+        }
+
+        Set<String> expectedNames = EXPECTED_INDEXES.stream().map(IndexSpec::name).collect(Collectors.toSet());
+        existing.keySet().stream()
+                .filter(name -> !ID_INDEX.equals(name) && !expectedNames.contains(name))
+                .forEach(name -> LOG.infof("Índice não gerido encontrado na coleção de templates: %s", name));
+
+        return problems;
+    }
+
+    private Document findByKeys(Map<String, Document> existing, Document keys) {
+        return existing.values().stream()
+                .filter(index -> sameKeys(index.get("key", Document.class), keys))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Compara as chaves respeitando a ordem dos campos (relevante em índices compostos)
+     */
+    private static boolean sameKeys(Document actual, Document expected) {
+        if (actual == null || actual.size() != expected.size()) {
+            return false;
+        }
+        List<String> actualFields = new ArrayList<>(actual.keySet());
+        List<String> expectedFields = new ArrayList<>(expected.keySet());
+        if (!actualFields.equals(expectedFields)) {
+            return false;
+        }
+        return expectedFields.stream().allMatch(field -> actual.get(field) instanceof Number number
+                && number.intValue() == expected.getInteger(field));
+    }
+
+    private static Document keys(String... fields) {
+        Document keys = new Document();
+        for (String field : fields) {
+            keys.append(field, 1);
+        }
+        return keys;
+    }
+
+    record IndexSpec(String name, Document keys, boolean unique, Document partialFilter) {
+
+        IndexOptions toOptions() {
+            IndexOptions options = new IndexOptions().name(name).unique(unique);
+            if (partialFilter != null) {
+                options.partialFilterExpression(partialFilter);
+            }
+            return options;
+        }
+
+        boolean matchesOptions(Document index) {
+            return unique == index.getBoolean("unique", false)
+                    && Objects.equals(partialFilter, index.get("partialFilterExpression", Document.class));
+        }
+    }
+}
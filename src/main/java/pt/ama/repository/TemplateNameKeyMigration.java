@@ -0,0 +1,65 @@
+package pt.ama.repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.jboss.logging.Logger;
+import pt.ama.model.Template;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migração única que preenche o campo nameKey dos templates existentes.
+ * Executada pelo TemplateIndexBootstrapper antes da criação do índice único sobre nameKey.
+ */
+@ApplicationScoped
+public class TemplateNameKeyMigration {
+
+    private static final Logger LOG = Logger.getLogger(TemplateNameKeyMigration.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Inject
+    TemplateRepository templateRepository;
+
+    /**
+     * Preenche nameKey em todos os documentos que ainda não o possuem
+     *
+     * @return número de documentos atualizados
+     */
+    public long migrate() {
+        MongoCollection<Document> collection = documents();
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        long migrated = 0;
+
+        for (Document document : collection.find(Filters.exists("nameKey", false))
+                .projection(Projections.include("name"))) {
+            String nameKey = Template.toNameKey(document.getString("name"));
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", document.get("_id")), Updates.set("nameKey", nameKey)));
+
+            if (updates.size() == BATCH_SIZE) {
+                migrated += collection.bulkWrite(updates).getModifiedCount();
+                updates.clear();
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            migrated += collection.bulkWrite(updates).getModifiedCount();
+        }
+
+        if (migrated > 0) {
+            LOG.infof("Migração de nameKey concluída - %d templates atualizados", migrated);
+        }
+        return migrated;
+    }
+
+    private MongoCollection<Document> documents() {
+        return templateRepository.mongoCollection().withDocumentClass(Document.class);
+    }
+}
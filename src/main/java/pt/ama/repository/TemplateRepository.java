@@ -15,8 +15,8 @@ public class TemplateRepository implements PanacheMongoRepositoryBase<Template,
     private static final Logger LOG = Logger.getLogger(TemplateRepository.class);
 
     public Template findByName(String name) {
-        LOG.infof("Buscando template com nome: '%s'", name);
-        return find("{'name': {'$regex': ?1, '$options': 'i'}, 'active': true}", "^" + name + "$").firstResult();
+        LOG.debugf("Buscando template com nome: '%s'", name);
+        return find("nameKey = ?1 and active = true", Template.toNameKey(name)).firstResult();
     }
 
     public List<Template> findByType(DocumentType type) {
@@ -32,7 +32,7 @@ public class TemplateRepository implements PanacheMongoRepositoryBase<Template,
     }
 
     public boolean existsByName(String name) {
-        return count("name = ?1 and active = true", name) > 0;
+        return count("nameKey = ?1 and active = true", Template.toNameKey(name)) > 0;
     }
 
     public List<Template> findByTemplateVersion(String name) {
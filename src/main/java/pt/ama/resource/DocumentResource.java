@@ -4,28 +4,58 @@ import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import pt.ama.dto.AsyncBatchResponse;
 import pt.ama.dto.AsyncDocumentResponse;
+import pt.ama.dto.BatchDocumentRequest;
 import pt.ama.dto.DocumentRequest;
 import pt.ama.dto.DocumentResponse;
+import pt.ama.dto.ErrorResponse;
+import pt.ama.model.Template;
+import pt.ama.service.DocumentBatchService;
 import pt.ama.service.DocumentService;
+import pt.ama.service.PreparedDocument;
+import pt.ama.service.storage.DocumentStore;
+import pt.ama.service.storage.DownloadLinkSigner;
+import pt.ama.service.storage.StoredDocument;
 import org.jboss.logging.Logger;
 
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
 @Path("/api/documents")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Document", description = "Operações de geração de documentos")
+@ServerTiming
 public class DocumentResource extends JsonApiResource {
 
     private static final Logger LOG = Logger.getLogger(DocumentResource.class);
+    private static final String ZIP = "application/zip";
+    private static final String NDJSON = "application/x-ndjson";
 
     @Inject
     DocumentService documentService;
 
+    @Inject
+    DocumentBatchService batchService;
+
+    @Inject
+    DocumentStore documentStore;
+
+    @Inject
+    DownloadLinkSigner downloadLinkSigner;
+
     @POST
     @Path("/generate")
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
@@ -38,14 +68,16 @@ public class DocumentResource extends JsonApiResource {
     public Response generateDocument(@Valid DocumentRequest request) {
         LOG.infof("Iniciando geração de documento para template: %s", request.getTemplateName());
         
-        byte[] document = documentService.generateDocument(request);
-        String filename = documentService.buildFilename(request);
-        
-        LOG.infof("Documento gerado com sucesso - tamanho: %d bytes", document.length);
+        // Template e dados são validados antes de a resposta começar; o documento é gerado diretamente no stream
+        PreparedDocument document = documentService.prepare(request);
+        StreamingOutput body = output -> {
+            document.writeTo(output);
+            LOG.infof("Documento enviado com sucesso - template: %s", document.getTemplateName());
+        };
 
-        return Response.ok(document)
-                .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
-                .header("Content-Type", "application/pdf")
+        return Response.ok(body)
+                .header("Content-Disposition", "attachment; filename=\"" + document.getFilename() + "\"")
+                .header("Content-Type", document.getContentType())
                 .build();
     }
 
@@ -67,6 +99,58 @@ public class DocumentResource extends JsonApiResource {
         return Response.ok(ok(response)).build();
     }
 
+    @POST
+    @Path("/generate/batch")
+    @Produces(ZIP)
+    @Operation(summary = "Gera vários documentos com o mesmo template e devolve um ZIP em streaming")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "ZIP com um documento por item (erros em errors/<índice>.txt)"),
+        @APIResponse(responseCode = "400", description = "Dados inválidos"),
+        @APIResponse(responseCode = "404", description = "Template não encontrado")
+    })
+    public Response generateBatch(@Valid BatchDocumentRequest request) {
+        LOG.infof("Iniciando geração em lote para template: %s (%d itens)",
+                request.getTemplateName(), request.getItems().size());
+
+        Template template = batchService.resolveTemplate(request.getTemplateName());
+        StreamingOutput body = output ->
+                batchService.writeZip(template, request.getOptions(), request.getItems().iterator(), output);
+
+        return zipResponse(body, template.getName());
+    }
+
+    @POST
+    @Path("/generate/batch")
+    @Consumes(NDJSON)
+    @Produces(ZIP)
+    @Operation(summary = "Gera vários documentos a partir de um stream NDJSON (um item por linha)")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "ZIP com um documento por item; itens e linhas inválidas em "
+                + "errors/<índice>.txt, falha de leitura do pedido em errors/request.txt"),
+        @APIResponse(responseCode = "404", description = "Template não encontrado")
+    })
+    public Response generateBatchStream(@QueryParam("templateName") String templateName,
+                                        @QueryParam("pageSize") String pageSize,
+                                        @QueryParam("orientation") String orientation,
+                                        InputStream items) {
+        LOG.infof("Iniciando geração em lote (NDJSON) para template: %s", templateName);
+
+        Template template = batchService.resolveTemplate(templateName);
+        DocumentRequest.PdfOptions options = new DocumentRequest.PdfOptions();
+        if (pageSize != null) {
+            options.setPageSize(pageSize);
+        }
+        if (orientation != null) {
+            options.setOrientation(orientation);
+        }
+
+        // Os itens são lidos do pedido à medida que há capacidade para os gerar; a resposta já começou,
+        // pelo que linhas inválidas e falhas de leitura ficam registadas no ZIP (ver DocumentBatchService)
+        StreamingOutput body = output -> batchService.writeZip(template, options, items, output);
+
+        return zipResponse(body, template.getName());
+    }
+
     @POST
     @Path("/generate/async")
     public Response generateDocumentAsync(@Valid DocumentRequest request) {
@@ -85,4 +169,110 @@ public class DocumentResource extends JsonApiResource {
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    @POST
+    @Path("/generate/async/batch")
+    @Operation(summary = "Publica um lote de pedidos de geração assíncrona (um evento Kafka por item)")
+    @APIResponses({
+        @APIResponse(responseCode = "202", description = "Lote aceite; eventIds pela ordem dos itens"),
+        @APIResponse(responseCode = "400", description = "Dados inválidos"),
+        @APIResponse(responseCode = "404", description = "Template não encontrado")
+    })
+    public Response generateDocumentsAsync(@Valid BatchDocumentRequest request) {
+        AsyncBatchResponse response = documentService.generateDocumentsAsync(request);
+
+        LOG.infof("Lote assíncrono publicado - template: %s, aceites: %d, falhados: %d",
+                request.getTemplateName(), response.getAccepted(), response.getFailedEventIds().size());
+
+        return Response.status(Response.Status.ACCEPTED)
+                .entity(response)
+                .build();
+    }
+
+    @GET
+    @Path("/download/{id}")
+    @Produces(MediaType.WILDCARD)
+    @Operation(summary = "Download de um documento gerado, através de link assinado enviado no callback")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Documento completo"),
+        @APIResponse(responseCode = "206", description = "Intervalo de bytes pedido no cabeçalho Range"),
+        @APIResponse(responseCode = "403", description = "Link inválido ou expirado"),
+        @APIResponse(responseCode = "404", description = "Documento não encontrado"),
+        @APIResponse(responseCode = "416", description = "Intervalo pedido fora do documento")
+    })
+    public Response downloadDocument(@PathParam("id") String id,
+                                     @QueryParam("expires") long expires,
+                                     @QueryParam("signature") String signature,
+                                     @HeaderParam(HttpHeaders.RANGE) String range) {
+        if (!downloadLinkSigner.isValid(id, expires, signature)) {
+            return error(Response.Status.FORBIDDEN, "INVALID_DOWNLOAD_LINK", "Link de download inválido ou expirado");
+        }
+
+        Optional<StoredDocument> found = documentStore.find(id);
+        if (found.isEmpty()) {
+            return error(Response.Status.NOT_FOUND, "DOCUMENT_NOT_FOUND", "Documento não encontrado: " + id);
+        }
+
+        StoredDocument document = found.get();
+        ByteRange byteRange = ByteRange.parse(range, document.size());
+
+        if (byteRange == ByteRange.UNSATISFIABLE) {
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Content-Range", "bytes */" + document.size())
+                    .build();
+        }
+
+        Response.ResponseBuilder response;
+        if (byteRange == null) {
+            byteRange = new ByteRange(0, document.size() - 1);
+            response = Response.ok();
+        } else {
+            response = Response.status(Response.Status.PARTIAL_CONTENT)
+                    .header("Content-Range", byteRange.contentRange(document.size()));
+            LOG.debugf("Download parcial do documento %s: %s", id, range);
+        }
+
+        return response
+                .entity(streamFile(document, byteRange))
+                .header("Accept-Ranges", "bytes")
+                .header(HttpHeaders.CONTENT_LENGTH, byteRange.length())
+                .header(HttpHeaders.CONTENT_TYPE, document.contentType())
+                .header("Content-Disposition", "attachment; filename=\"" + document.filename() + "\"")
+                .build();
+    }
+
+    /**
+     * Copia o intervalo do ficheiro para a resposta sem o carregar em memória
+     */
+    private StreamingOutput streamFile(StoredDocument document, ByteRange byteRange) {
+        return output -> {
+            try (FileChannel channel = FileChannel.open(document.path(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(output);
+                long position = byteRange.start();
+                long remaining = byteRange.length();
+                while (remaining > 0) {
+                    long transferred = channel.transferTo(position, remaining, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                    remaining -= transferred;
+                }
+            }
+        };
+    }
+
+    private Response zipResponse(StreamingOutput body, String templateName) {
+        return Response.ok(body)
+                .header("Content-Disposition", "attachment; filename=\"" + templateName + ".zip\"")
+                .header("Content-Type", ZIP)
+                .build();
+    }
+
+    private Response error(Response.Status status, String code, String message) {
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(new ErrorResponse(code, message, status.getStatusCode()))
+                .build();
+    }
+}
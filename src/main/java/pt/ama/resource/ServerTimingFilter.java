@@ -0,0 +1,30 @@
+package pt.ama.resource;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+import pt.ama.service.metrics.StageTimings;
+
+/**
+ * Acrescenta o header Server-Timing às respostas dos recursos anotados com @ServerTiming.
+ * Nas respostas em streaming o header é enviado antes de o documento ser gerado, pelo que
+ * só inclui as etapas concluídas até lá (template, validação e processamento).
+ */
+@Provider
+@ServerTiming
+public class ServerTimingFilter implements ContainerResponseFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    @Inject
+    StageTimings stageTimings;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!stageTimings.isEmpty()) {
+            responseContext.getHeaders().add(SERVER_TIMING, stageTimings.toHeaderValue());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package pt.ama.service;
+
+import pt.ama.dto.BatchDocumentRequest;
+import pt.ama.dto.DocumentRequest;
+
+/**
+ * Opções de geração de cada item de um lote, partilhadas pelos lotes síncronos (ZIP) e assíncronos
+ * (Kafka), para que o mesmo pedido produza os mesmos nomes de ficheiro nos dois caminhos.
+ */
+final class BatchItemOptions {
+
+    private BatchItemOptions() {
+    }
+
+    /**
+     * Opções do item: as do lote, com o nome do ficheiro do item ou, por omissão,
+     * <filename do lote sem extensão ou nome do template>-<índice>.
+     * Os nomes vindos do pedido são reduzidos ao nome base (ver {@link #baseName(String)}).
+     */
+    static DocumentRequest.PdfOptions forItem(String templateName, DocumentRequest.PdfOptions batchOptions,
+                                              int index, BatchDocumentRequest.Item item) {
+        DocumentRequest.PdfOptions options = new DocumentRequest.PdfOptions();
+        if (batchOptions != null) {
+            options.setOrientation(batchOptions.getOrientation());
+            options.setPageSize(batchOptions.getPageSize());
+            options.setAuthor(batchOptions.getAuthor());
+            options.setSubject(batchOptions.getSubject());
+            options.setKeywords(batchOptions.getKeywords());
+        }
+
+        String filename = baseName(item.getFilename());
+        if (filename == null) {
+            String batchFilename = batchOptions != null ? baseName(batchOptions.getFilename()) : null;
+            String base = batchFilename != null
+                    ? batchFilename.replaceFirst("\\.[^.]+$", "")
+                    : templateName;
+            filename = base + "-" + index;
+        }
+        options.setFilename(filename);
+        return options;
+    }
+
+    /**
+     * Reduz um nome de ficheiro vindo do pedido ao seu nome base: remove diretórios (/ e \),
+     * letras de unidade e pontos iniciais, para que não possa apontar para fora do destino
+     * (por exemplo, "../../x.pdf" numa entrada ZIP). Devolve null se não restar nome.
+     */
+    static String baseName(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        String name = filename.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1)
+                .replace(':', '_')
+                .replaceFirst("^\\.+", "")
+                .trim();
+        return name.isEmpty() ? null : name;
+    }
+}
@@ -1,97 +1,483 @@
 package pt.ama.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
+import pt.ama.model.CallbackOutboxEntry;
+import pt.ama.model.CallbackOutboxEntry.CallbackType;
+import pt.ama.model.CallbackOutboxStatus;
+import pt.ama.repository.CallbackDocumentRepository;
+import pt.ama.repository.CallbackOutboxRepository;
+import pt.ama.service.callback.CallbackPayloadWriter;
+import pt.ama.service.callback.CircuitBreaker;
+import pt.ama.service.metrics.DocumentMetrics;
+import pt.ama.service.tracing.DocumentTracing;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.Base64;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Entrega assíncrona de callbacks. Cada callback é primeiro registado no outbox (MongoDB) e depois
+ * enviado com sendAsync num executor dedicado, com limite de pedidos simultâneos e circuit breaker
+ * por host, e novas tentativas com backoff exponencial e jitter.
+ * O conteúdo dos documentos entregues inline fica em GridFS (CallbackDocumentRepository): o outbox
+ * guarda apenas o id, e o documento é lido a cada tentativa de envio por qualquer instância.
+ * Um documento em falta é tratado como falha temporária, com nova tentativa e backoff.
+ */
 @ApplicationScoped
 public class CallbackService {
-    
+
     private static final Logger LOG = Logger.getLogger(CallbackService.class);
-    
-    private final HttpClient httpClient;
-    
-    public CallbackService() {
-        this.httpClient = HttpClient.newBuilder()
+    private static final Duration PERMIT_RETRY_DELAY = Duration.ofMillis(200);
+    private static final Duration MIN_CIRCUIT_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final int SWEEP_BATCH_SIZE = 100;
+    private static final int PAYLOAD_PIPE_SIZE = 64 * 1024;
+
+    @ConfigProperty(name = "callback.executor-threads", defaultValue = "16")
+    int executorThreads;
+
+    @ConfigProperty(name = "callback.max-concurrency-per-host", defaultValue = "4")
+    int maxConcurrencyPerHost;
+
+    @ConfigProperty(name = "callback.request-timeout", defaultValue = "60S")
+    Duration requestTimeout;
+
+    @ConfigProperty(name = "callback.retry.max-attempts", defaultValue = "8")
+    int maxAttempts;
+
+    @ConfigProperty(name = "callback.retry.initial-backoff", defaultValue = "2S")
+    Duration initialBackoff;
+
+    @ConfigProperty(name = "callback.retry.max-backoff", defaultValue = "5M")
+    Duration maxBackoff;
+
+    @ConfigProperty(name = "callback.circuit-breaker.failure-threshold", defaultValue = "5")
+    int circuitFailureThreshold;
+
+    @ConfigProperty(name = "callback.circuit-breaker.open-duration", defaultValue = "30S")
+    Duration circuitOpenDuration;
+
+    @ConfigProperty(name = "callback.outbox.recovery.enabled", defaultValue = "true")
+    boolean outboxRecoveryEnabled;
+
+    @ConfigProperty(name = "callback.outbox.sweep-interval", defaultValue = "30S")
+    Duration outboxSweepInterval;
+
+    @ConfigProperty(name = "callback.outbox.lease", defaultValue = "2M")
+    Duration outboxLease;
+
+    @Inject
+    CallbackOutboxRepository outboxRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    DocumentMetrics documentMetrics;
+
+    @Inject
+    DocumentTracing documentTracing;
+
+    @Inject
+    CallbackDocumentRepository callbackDocuments;
+
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+    private ExecutorService callbackExecutor;
+    private ExecutorService payloadExecutor;
+    private CallbackPayloadWriter payloadWriter;
+    private ScheduledExecutorService scheduler;
+    private HttpClient httpClient;
+
+    @PostConstruct
+    void init() {
+        callbackExecutor = Executors.newFixedThreadPool(executorThreads);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        payloadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        payloadWriter = new CallbackPayloadWriter(objectMapper.getFactory());
+        httpClient = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(30))
+            .executor(callbackExecutor)
             .build();
     }
-    
-    public void sendDocumentCallback(String callbackUrl, String eventId, byte[] documentBytes, 
+
+    /**
+     * Retoma, periodicamente, callbacks pendentes no outbox (por exemplo após um reinício)
+     */
+    void onStart(@Observes StartupEvent event) {
+        if (outboxRecoveryEnabled) {
+            scheduler.scheduleWithFixedDelay(this::sweepOutbox, 0, outboxSweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void sendDocumentCallback(String callbackUrl, String eventId, byte[] documentBytes,
                                    String filename, String contentType) {
+        CallbackOutboxEntry entry = newEntry(callbackUrl, eventId, CallbackType.DOCUMENT);
+        entry.setDocumentFileId(callbackDocuments.store(documentBytes, filename));
+        entry.setSize((long) documentBytes.length);
+        entry.setFilename(filename);
+        entry.setContentType(contentType);
+
+        enqueue(entry);
+    }
+
+    /**
+     * Callback com referência ao documento guardado no DocumentStore, em vez do conteúdo em Base64
+     */
+    public void sendDocumentLinkCallback(String callbackUrl, String eventId, String filename, String contentType,
+                                         long size, String downloadUrl, Instant expiresAt) {
+        CallbackOutboxEntry entry = newEntry(callbackUrl, eventId, CallbackType.DOCUMENT);
+        entry.setFilename(filename);
+        entry.setContentType(contentType);
+        entry.setSize(size);
+        entry.setDownloadUrl(downloadUrl);
+        entry.setExpiresAt(expiresAt);
+
+        enqueue(entry);
+    }
+
+    public void sendErrorCallback(String callbackUrl, String eventId, String errorMessage) {
+        CallbackOutboxEntry entry = newEntry(callbackUrl, eventId, CallbackType.ERROR);
+        entry.setErrorMessage(errorMessage);
+
+        enqueue(entry);
+    }
+
+    private CallbackOutboxEntry newEntry(String callbackUrl, String eventId, CallbackType type) {
+        LocalDateTime now = LocalDateTime.now();
+
+        CallbackOutboxEntry entry = new CallbackOutboxEntry();
+        entry.setCallbackUrl(callbackUrl);
+        entry.setEventId(eventId);
+        entry.setType(type);
+        entry.setStatus(CallbackOutboxStatus.PENDING);
+        entry.setAttempts(0);
+        entry.setCreatedAt(now);
+        entry.setNextAttemptAt(now);
+        entry.setLeaseUntil(now.plus(outboxLease));
+        entry.setTraceContext(documentTracing.capture());
+        return entry;
+    }
+
+    /**
+     * Regista o callback no outbox e inicia o envio sem bloquear quem chama
+     */
+    private void enqueue(CallbackOutboxEntry entry) {
+        outboxRepository.persist(entry);
+        LOG.debugf("Callback queued for event: %s", entry.getEventId());
+        dispatch(entry);
+    }
+
+    private void dispatch(CallbackOutboxEntry entry) {
+        if (isInlineDocument(entry) && !documentAvailable(entry)) {
+            return;
+        }
+
+        // Pipes abertos pelo BodyPublisher; fechados quando o envio termina, com ou sem sucesso
+        Set<InputStream> payloadStreams = ConcurrentHashMap.newKeySet();
+        HttpRequest request;
         try {
-            String base64Document = Base64.getEncoder().encodeToString(documentBytes);
-            
-            String jsonPayload = String.format("""
-                {
-                    "eventId": "%s",
-                    "status": "SUCCESS",
-                    "filename": "%s",
-                    "contentType": "%s",
-                    "document": "%s"
+            request = buildRequest(entry, payloadStreams);
+        } catch (IllegalArgumentException e) {
+            markFailed(entry, "Invalid callback request: " + e.getMessage());
+            return;
+        }
+
+        HostState host = hostState(request.uri());
+
+        if (!host.circuitBreaker().allowRequest()) {
+            Duration delay = max(host.circuitBreaker().remainingOpenTime(), MIN_CIRCUIT_RETRY_DELAY);
+            LOG.debugf("Circuit open for host %s, postponing callback for event %s by %s",
+                request.uri().getHost(), entry.getEventId(), delay);
+            reschedule(entry, delay);
+            return;
+        }
+
+        if (!host.permits().tryAcquire()) {
+            scheduler.schedule(() -> dispatch(entry), PERMIT_RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        Span span = startCallbackSpan(entry, request);
+        long start = System.nanoTime();
+        httpClient.sendAsync(tracedRequest(request, span), HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                payloadStreams.forEach(CallbackService::closeQuietly);
+                host.permits().release();
+                documentMetrics.recordCallback(entry.getType().name(),
+                    error != null ? "error" : response.statusCode() / 100 + "xx", System.nanoTime() - start);
+                endCallbackSpan(span, response, error);
+                try {
+                    handleResult(entry, host, response, error);
+                } catch (Exception e) {
+                    LOG.error("Error updating callback outbox for event: " + entry.getEventId(), e);
                 }
-                """, eventId, filename, contentType, base64Document);
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(callbackUrl))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
-                .timeout(Duration.ofSeconds(60))
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, 
-                HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                LOG.info("Callback sent successfully for event: " + eventId + 
-                        ", status: " + response.statusCode());
-            } else {
-                LOG.warn("Callback failed for event: " + eventId + 
-                        ", status: " + response.statusCode() + 
-                        ", response: " + response.body());
-            }
-            
-        } catch (IOException | InterruptedException e) {
-            LOG.error("Error sending callback for event: " + eventId, e);
+            });
+    }
+
+    private void handleResult(CallbackOutboxEntry entry, HostState host, HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            host.circuitBreaker().recordFailure();
+            LOG.warn("Error sending callback for event: " + entry.getEventId() + ": " + error.getMessage());
+            retryOrFail(entry, error.getMessage());
+            return;
         }
+
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            host.circuitBreaker().recordSuccess();
+            outboxRepository.deleteById(entry.getId());
+            deleteDocument(entry);
+            LOG.info("Callback sent successfully for event: " + entry.getEventId() +
+                    ", type: " + entry.getType() + ", status: " + status);
+            return;
+        }
+
+        if (status == 408 || status == 429 || status >= 500) {
+            host.circuitBreaker().recordFailure();
+            LOG.warn("Callback failed for event: " + entry.getEventId() +
+                    ", status: " + status +
+                    ", response: " + response.body());
+            retryOrFail(entry, "HTTP " + status);
+            return;
+        }
+
+        // Restantes 4xx: o destino respondeu, mas rejeita o pedido; repetir não ajuda
+        host.circuitBreaker().recordSuccess();
+        markFailed(entry, "HTTP " + status + ": " + response.body());
     }
-    
-    public void sendErrorCallback(String callbackUrl, String eventId, String errorMessage) {
+
+    private void retryOrFail(CallbackOutboxEntry entry, String error) {
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setLastError(error);
+
+        if (entry.getAttempts() >= maxAttempts) {
+            markFailed(entry, error);
+            return;
+        }
+
+        reschedule(entry, backoff(entry.getAttempts()));
+    }
+
+    /**
+     * Agenda nova tentativa nesta instância e prolonga o lease para lá dessa data,
+     * para que o varrimento do outbox só a retome se esta instância morrer
+     */
+    private void reschedule(CallbackOutboxEntry entry, Duration delay) {
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(delay);
+        entry.setNextAttemptAt(nextAttemptAt);
+        entry.setLeaseUntil(nextAttemptAt.plus(outboxLease));
+        outboxRepository.update(entry);
+
+        scheduler.schedule(() -> dispatch(entry), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void markFailed(CallbackOutboxEntry entry, String error) {
+        entry.setStatus(CallbackOutboxStatus.FAILED);
+        entry.setLastError(error);
+        outboxRepository.update(entry);
+        deleteDocument(entry);
+        LOG.errorf("Callback for event %s abandoned after %d attempt(s): %s",
+            entry.getEventId(), entry.getAttempts(), error);
+    }
+
+    private void sweepOutbox() {
         try {
-            String jsonPayload = String.format("""
-                {
-                    "eventId": "%s",
-                    "status": "ERROR",
-                    "message": "%s"
+            LocalDateTime now = LocalDateTime.now();
+            for (CallbackOutboxEntry entry : outboxRepository.findDue(now, SWEEP_BATCH_SIZE)) {
+                LocalDateTime leaseUntil = now.plus(outboxLease);
+                if (outboxRepository.claim(entry.getId(), now, leaseUntil)) {
+                    entry.setLeaseUntil(leaseUntil);
+                    LOG.infof("Resuming pending callback for event: %s", entry.getEventId());
+                    dispatch(entry);
                 }
-                """, eventId, errorMessage.replace("\"", "\\\""));
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(callbackUrl))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
-                .timeout(Duration.ofSeconds(60))
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, 
-                HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                LOG.info("Error callback sent successfully for event: " + eventId);
-            } else {
-                LOG.warn("Error callback failed for event: " + eventId + 
-                        ", status: " + response.statusCode());
             }
-            
-        } catch (IOException | InterruptedException e) {
-            LOG.error("Error sending error callback for event: " + eventId, e);
+        } catch (Exception e) {
+            LOG.error("Error sweeping callback outbox", e);
+        }
+    }
+
+    /**
+     * Backoff exponencial com jitter: metade fixa, metade aleatória
+     */
+    private Duration backoff(int attempt) {
+        long cap = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() * (1L << Math.min(attempt - 1, 20)));
+        long half = Math.max(cap / 2, 1);
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    /**
+     * Span da tentativa de entrega, descendente do trace em que o callback foi registado no outbox
+     */
+    private Span startCallbackSpan(CallbackOutboxEntry entry, HttpRequest request) {
+        return documentTracing.spanBuilder("POST callback")
+            .setParent(documentTracing.restore(entry.getTraceContext()))
+            .setSpanKind(SpanKind.CLIENT)
+            .setAttribute("http.request.method", "POST")
+            .setAttribute("server.address", request.uri().getHost())
+            .setAttribute("document.event_id", entry.getEventId())
+            .setAttribute("document.callback.type", entry.getType().name())
+            .setAttribute("document.callback.attempt", entry.getAttempts() + 1)
+            .startSpan();
+    }
+
+    private HttpRequest tracedRequest(HttpRequest request, Span span) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        documentTracing.inject(Context.root().with(span), builder, HttpRequest.Builder::setHeader);
+        return builder.build();
+    }
+
+    private static void endCallbackSpan(Span span, HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR, error.getMessage());
+        } else {
+            span.setAttribute("http.response.status_code", response.statusCode());
+            if (response.statusCode() >= 400) {
+                span.setStatus(StatusCode.ERROR);
+            }
+        }
+        span.end();
+    }
+
+    private static boolean isInlineDocument(CallbackOutboxEntry entry) {
+        return entry.getType() == CallbackType.DOCUMENT && entry.getDownloadUrl() == null;
+    }
+
+    /**
+     * Verifica se o documento de uma entrega inline pode ser lido. Se não puder (por exemplo, por
+     * indisponibilidade do MongoDB), o callback volta a PENDING com backoff em vez de falhar de vez.
+     */
+    private boolean documentAvailable(CallbackOutboxEntry entry) {
+        String error;
+        try {
+            if (entry.getDocumentFileId() != null && callbackDocuments.exists(entry.getDocumentFileId())) {
+                return true;
+            }
+            error = "Callback document not found: " + entry.getDocumentFileId();
+        } catch (RuntimeException e) {
+            error = "Callback document unavailable: " + e.getMessage();
+        }
+
+        LOG.warnf("%s (event %s)", error, entry.getEventId());
+        try {
+            retryOrFail(entry, error);
+        } catch (RuntimeException e) {
+            LOG.error("Error updating callback outbox for event: " + entry.getEventId(), e);
+        }
+        return false;
+    }
+
+    private void deleteDocument(CallbackOutboxEntry entry) {
+        if (entry.getDocumentFileId() != null) {
+            callbackDocuments.delete(entry.getDocumentFileId());
+        }
+    }
+
+    private HttpRequest buildRequest(CallbackOutboxEntry entry, Set<InputStream> payloadStreams) {
+        return HttpRequest.newBuilder()
+            .uri(URI.create(entry.getCallbackUrl()))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofInputStream(() -> {
+                InputStream payload = openPayload(entry);
+                payloadStreams.add(payload);
+                return payload;
+            }))
+            .timeout(requestTimeout)
+            .build();
+    }
+
+    /**
+     * Abre um pipe cujo lado de escrita é alimentado pelo CallbackPayloadWriter numa thread virtual,
+     * enquanto o HttpClient lê e envia o corpo à medida que é produzido. O documento (entrega inline)
+     * é lido do GridFS pela mesma thread.
+     * <p>
+     * O HttpClient só fecha o stream no fim do corpo ou num erro de leitura, não em timeout ou
+     * cancelamento; por isso o dispatch fecha-o quando o envio termina, o que liberta o escritor
+     * bloqueado no pipe. Se a escrita falhar, o lado de escrita não é fechado: o leitor recebe um
+     * erro em vez de um fim de stream, e o pedido falha em vez de enviar um corpo truncado.
+     */
+    private InputStream openPayload(CallbackOutboxEntry entry) {
+        PipedInputStream input = new PipedInputStream(PAYLOAD_PIPE_SIZE);
+        PipedOutputStream output;
+        try {
+            output = new PipedOutputStream(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        payloadExecutor.execute(() -> {
+            try (InputStream content = isInlineDocument(entry) ? callbackDocuments.open(entry.getDocumentFileId()) : null) {
+                payloadWriter.write(entry, content, output);
+                output.close();
+            } catch (IOException | RuntimeException e) {
+                // Pipe fechado pelo dispatch (timeout ou cancelamento) ou documento ilegível; o erro chega pelo sendAsync
+                closeQuietly(input);
+                LOG.debugf("Callback payload stream closed for event %s: %s", entry.getEventId(), e.getMessage());
+            }
+        });
+        return input;
+    }
+
+    private static void closeQuietly(InputStream input) {
+        try {
+            input.close();
+        } catch (IOException e) {
+            LOG.debugf("Error closing callback payload stream: %s", e.getMessage());
+        }
+    }
+
+    private HostState hostState(URI uri) {
+        String host = uri.getHost() + ":" + uri.getPort();
+        return hosts.computeIfAbsent(host, h -> new HostState(
+            new Semaphore(maxConcurrencyPerHost),
+            new CircuitBreaker(circuitFailureThreshold, circuitOpenDuration)));
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        payloadExecutor.shutdown();
+        callbackExecutor.shutdown();
+        try {
+            callbackExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+
+    private record HostState(Semaphore permits, CircuitBreaker circuitBreaker) {
+    }
+}
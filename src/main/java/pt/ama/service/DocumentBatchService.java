@@ -0,0 +1,281 @@
+package pt.ama.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import pt.ama.dto.BatchDocumentRequest;
+import pt.ama.dto.DocumentRequest;
+import pt.ama.model.Template;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Geração de documentos em lote. O template é resolvido uma vez; os itens são gerados em paralelo
+ * num pool limitado e escritos num ZIP, pela ordem em que terminam.
+ */
+@ApplicationScoped
+public class DocumentBatchService {
+
+    private static final Logger LOG = Logger.getLogger(DocumentBatchService.class);
+
+    @Inject
+    DocumentService documentService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "document.batch.concurrency", defaultValue = "4")
+    int concurrency;
+
+    @ConfigProperty(name = "document.batch.max-in-flight-per-request", defaultValue = "16")
+    int maxInFlight;
+
+    private ExecutorService renderExecutor;
+
+    @PostConstruct
+    void init() {
+        renderExecutor = Executors.newFixedThreadPool(concurrency);
+    }
+
+    /**
+     * Resolve o template do lote; falha antes de a resposta começar se não existir ou estiver inativo
+     */
+    public Template resolveTemplate(String templateName) {
+        return documentService.resolveActiveTemplate(templateName);
+    }
+
+    /**
+     * Gera os itens e escreve o ZIP no stream de saída.
+     * Itens com erro não interrompem o lote: o erro fica registado em errors/<índice>.txt.
+     */
+    public void writeZip(Template template, DocumentRequest.PdfOptions options,
+                         Iterator<BatchDocumentRequest.Item> items, OutputStream output) throws IOException {
+        Iterator<Callable<BatchDocumentRequest.Item>> sources = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public Callable<BatchDocumentRequest.Item> next() {
+                BatchDocumentRequest.Item item = items.next();
+                return () -> item;
+            }
+        };
+
+        ZipOutputStream zip = new ZipOutputStream(output);
+        writeItems(template, options, sources, zip);
+        zip.finish();
+    }
+
+    /**
+     * Gera os itens de um pedido NDJSON (um item por linha) e escreve o ZIP no stream de saída.
+     * As linhas são lidas à medida que há capacidade, pelo que o lote não é carregado por inteiro;
+     * como a resposta já começou, os erros do pedido não podem ser um 4xx e ficam no ZIP:
+     * uma linha inválida fica em errors/<índice>.txt, como um item com erro, e uma falha de leitura
+     * do pedido (por exemplo, ligação interrompida) termina o lote com errors/request.txt.
+     */
+    public void writeZip(Template template, DocumentRequest.PdfOptions options,
+                         InputStream ndjson, OutputStream output) throws IOException {
+        NdjsonItems items = new NdjsonItems(ndjson, objectMapper.readerFor(BatchDocumentRequest.Item.class));
+
+        ZipOutputStream zip = new ZipOutputStream(output);
+        writeItems(template, options, items, zip);
+        if (items.readError != null) {
+            LOG.warnf("Leitura do lote NDJSON interrompida após a linha %d: %s", items.lineNumber, items.readError.getMessage());
+            writeEntry(zip, "errors/request.txt", ("Leitura do pedido interrompida após a linha " + items.lineNumber
+                    + ": " + items.readError.getMessage()).getBytes(StandardCharsets.UTF_8));
+        }
+        zip.finish();
+    }
+
+    /**
+     * Os itens são obtidos do iterator à medida que há capacidade; cada um é lido (ou convertido)
+     * e gerado no pool de trabalho, e escrito no ZIP pela ordem em que termina
+     */
+    private void writeItems(Template template, DocumentRequest.PdfOptions options,
+                            Iterator<Callable<BatchDocumentRequest.Item>> items, ZipOutputStream zip) throws IOException {
+        long start = System.currentTimeMillis();
+        CompletionService<ItemResult> completion = new ExecutorCompletionService<>(renderExecutor);
+        Set<String> usedNames = new HashSet<>();
+        int submitted = 0;
+        int completed = 0;
+        int failed = 0;
+
+        // Em caso de erro de escrita (por exemplo, cliente desligado) a exceção interrompe o lote;
+        // no máximo maxInFlight itens já submetidos terminam sem destino
+        while (items.hasNext() || completed < submitted) {
+            while (items.hasNext() && submitted - completed < maxInFlight) {
+                int index = submitted++;
+                Callable<BatchDocumentRequest.Item> item = items.next();
+                completion.submit(() -> render(template, options, index, item));
+            }
+
+            ItemResult result = take(completion);
+            completed++;
+
+            if (result.failed()) {
+                failed++;
+                writeEntry(zip, "errors/" + result.index() + ".txt", result.error().getBytes(StandardCharsets.UTF_8));
+            } else {
+                writeEntry(zip, uniqueName(result.filename(), result.index(), usedNames), result.content());
+            }
+        }
+
+        LOG.infof("Lote gerado - template: %s, itens: %d, com erro: %d, duração: %d ms",
+                template.getName(), completed, failed, System.currentTimeMillis() - start);
+    }
+
+    private ItemResult render(Template template, DocumentRequest.PdfOptions options, int index,
+                              Callable<BatchDocumentRequest.Item> source) {
+        try {
+            BatchDocumentRequest.Item item = source.call();
+            DocumentRequest request = new DocumentRequest();
+            request.setTemplateName(template.getName());
+            request.setData(item.getData());
+            request.setOptions(BatchItemOptions.forItem(template.getName(), options, index, item));
+
+            PreparedDocument prepared = documentService.prepare(request, template);
+            return ItemResult.success(index, prepared.getFilename(), prepared.toBytes());
+        } catch (Exception e) {
+            // Muitas exceções (NPE, erros do iText) não têm mensagem: o tipo serve de descrição
+            String error = Objects.toString(e.getMessage(), e.getClass().getName());
+            LOG.warnf("Erro no item %d do lote (template %s): %s", index, template.getName(), error);
+            return ItemResult.failure(index, error);
+        }
+    }
+
+    /**
+     * Nome da entrada no ZIP: apenas o nome base do ficheiro (nunca um caminho), com sufixo
+     * -1, -2, ... quando repetido
+     */
+    private String uniqueName(String requestedName, int index, Set<String> usedNames) {
+        String baseName = BatchItemOptions.baseName(requestedName);
+        String filename = baseName != null ? baseName : "document-" + index;
+        String name = filename;
+        int suffix = 1;
+        while (!usedNames.add(name)) {
+            int dot = filename.lastIndexOf('.');
+            name = dot > 0
+                    ? filename.substring(0, dot) + "-" + suffix + filename.substring(dot)
+                    : filename + "-" + suffix;
+            suffix++;
+        }
+        return name;
+    }
+
+    private void writeEntry(ZipOutputStream zip, String name, byte[] content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+        zip.flush();
+    }
+
+    private ItemResult take(CompletionService<ItemResult> completion) throws IOException {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Geração do lote interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderExecutor.shutdown();
+    }
+
+    /**
+     * Linhas de um pedido NDJSON, ignorando linhas em branco. A conversão de cada linha é feita no
+     * pool de trabalho; uma linha inválida falha apenas o seu item. Um erro de leitura termina a
+     * iteração e fica em readError.
+     */
+    private static final class NdjsonItems implements Iterator<Callable<BatchDocumentRequest.Item>> {
+
+        private final BufferedReader reader;
+        private final ObjectReader itemReader;
+        private String nextLine;
+        private int nextLineNumber;
+        private int lineNumber;
+        private IOException readError;
+
+        NdjsonItems(InputStream input, ObjectReader itemReader) {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            this.itemReader = itemReader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextLine == null && readError == null) {
+                try {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        return false;
+                    }
+                    lineNumber++;
+                    if (!line.isBlank()) {
+                        nextLine = line;
+                        nextLineNumber = lineNumber;
+                    }
+                } catch (IOException e) {
+                    readError = e;
+                }
+            }
+            return nextLine != null;
+        }
+
+        @Override
+        public Callable<BatchDocumentRequest.Item> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            int number = nextLineNumber;
+            nextLine = null;
+            return () -> {
+                try {
+                    return itemReader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Linha " + number + " inválida: " + e.getOriginalMessage(), e);
+                }
+            };
+        }
+    }
+
+    record ItemResult(int index, String filename, byte[] content, String error, boolean failed) {
+
+        static ItemResult success(int index, String filename, byte[] content) {
+            return new ItemResult(index, filename, content, null, false);
+        }
+
+        static ItemResult failure(int index, String error) {
+            return new ItemResult(index, null, null, error, true);
+        }
+    }
+}
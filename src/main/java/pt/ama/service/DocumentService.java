@@ -2,29 +2,42 @@ package pt.ama.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.quarkus.qute.Engine;
+import io.quarkus.qute.TemplateInstance;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
+import pt.ama.dto.AsyncBatchResponse;
 import pt.ama.dto.AsyncDocumentResponse;
+import pt.ama.dto.BatchDocumentRequest;
+import pt.ama.dto.DocumentGenerationMessage;
 import pt.ama.dto.DocumentRequest;
 import pt.ama.dto.DocumentResponse;
+import pt.ama.dto.GeneratedDocument;
 import pt.ama.exception.*;
 import pt.ama.mapper.DocumentRequestMapper;
 import pt.ama.model.DocumentType;
 import pt.ama.model.Template;
+import pt.ama.service.cache.CachedDocument;
+import pt.ama.service.cache.CompiledTemplateCache;
+import pt.ama.service.cache.RenderedDocumentCache;
 import pt.ama.service.generator.DocumentGenerator;
 import pt.ama.service.generator.DocumentGeneratorFactory;
 import pt.ama.service.kafka.DocumentKafkaProducer;
+import pt.ama.service.metrics.DocumentMetrics;
+import pt.ama.service.metrics.GenerationStage;
 import pt.ama.service.validation.DocumentValidator;
 import pt.ama.service.validation.RequiredFieldsValidator;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Map;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @ApplicationScoped
 public class DocumentService {
@@ -39,7 +52,10 @@ public class DocumentService {
     DocumentGeneratorFactory generatorFactory;
 
     @Inject
-    Engine quteEngine;
+    CompiledTemplateCache compiledTemplateCache;
+
+    @Inject
+    RenderedDocumentCache renderedDocumentCache;
 
     @Inject
     ObjectMapper objectMapper;
@@ -56,6 +72,15 @@ public class DocumentService {
     @Inject
     DocumentKafkaProducer kafkaProducer;
 
+    @Inject
+    DocumentMetrics documentMetrics;
+
+    @ConfigProperty(name = "document.render.pipelined", defaultValue = "false")
+    boolean pipelinedRendering;
+
+    @ConfigProperty(name = "document.render.pipe-buffer-size", defaultValue = "65536")
+    int pipeBufferSize;
+
     /**
      * Processa requisição de documento - síncrono ou assíncrono baseado no flag
      */
@@ -90,58 +115,180 @@ public class DocumentService {
         }
     }
 
+    /**
+     * Publica um lote de pedidos assíncronos de uma só vez. O template é validado antes da publicação.
+     */
+    public AsyncBatchResponse generateDocumentsAsync(@Valid BatchDocumentRequest request) {
+        LOG.infof("Iniciando lote assíncrono para template: %s (%d itens)",
+                request.getTemplateName(), request.getItems().size());
+
+        Template template = resolveActiveTemplate(request.getTemplateName());
+
+        List<DocumentGenerationMessage> messages = new ArrayList<>(request.getItems().size());
+        for (int index = 0; index < request.getItems().size(); index++) {
+            BatchDocumentRequest.Item item = request.getItems().get(index);
+            DocumentGenerationMessage message = new DocumentGenerationMessage();
+            message.setTemplateName(template.getName());
+            message.setData(item.getData());
+            message.setCallbackUrl(request.getCallbackUrl());
+            message.setCallbackDelivery(request.getCallbackDelivery());
+            message.setOptions(BatchItemOptions.forItem(template.getName(), request.getOptions(), index, item));
+            messages.add(message);
+        }
+
+        DocumentKafkaProducer.BulkPublishResult result = kafkaProducer.publishDocumentGenerationRequests(messages);
+        int accepted = result.eventIds().size() - result.failedEventIds().size();
+
+        if (accepted == 0) {
+            throw new DocumentGenerationException(request.getTemplateName(), "Failed to publish async batch");
+        }
+
+        String status = result.failedEventIds().isEmpty() ? "ACCEPTED" : "PARTIALLY_ACCEPTED";
+        return new AsyncBatchResponse(status, accepted, result.eventIds(), result.failedEventIds());
+    }
+
     /**
      * Gera um documento baseado no template e dados fornecidos
      */
-    @Transactional
     public byte[] generateDocument(@Valid DocumentRequest request) {
+        return generate(request).getContent();
+    }
+
+    /**
+     * Gera um documento e resolve os seus metadados (filename, content type).
+     * O template é resolvido uma única vez por geração.
+     */
+    @Transactional
+    public GeneratedDocument generate(@Valid DocumentRequest request) {
+        PreparedDocument prepared = prepare(request);
+
+        byte[] document = prepared.toBytes();
+
+        LOG.infof("Documento gerado com sucesso - template: %s, tamanho: %d bytes", 
+                 prepared.getTemplateName(), document.length);
+
+        return GeneratedDocument.builder()
+                .content(document)
+                .filename(prepared.getFilename())
+                .contentType(prepared.getContentType())
+                .templateName(prepared.getTemplateName())
+                .documentType(prepared.getDocumentType())
+                .build();
+    }
+
+    /**
+     * Valida o pedido, resolve e processa o template e escolhe o gerador, sem gerar o documento.
+     * Erros de template e de dados surgem aqui, antes de qualquer byte ser escrito na resposta.
+     */
+    public PreparedDocument prepare(@Valid DocumentRequest request) {
         LOG.infof("Iniciando geração de documento para template: %s", request.getTemplateName());
         
+        Template template = null;
         try {
             documentValidator.validateDocumentRequest(request);
 
-            Template template = templateService.findByNameOrThrow(request.getTemplateName());
+            template = resolveActiveTemplate(request.getTemplateName());
 
-            validateTemplateIsActive(template);
+            return doPrepare(request, template);
+            
+        } catch (BusinessException e) {
+            LOG.warnf("Erro de negócio ao gerar documento: %s", e.getMessage());
+            documentMetrics.recordError(template != null ? template.getName() : null, e);
+            throw e;
+        } catch (Exception e) {
+            LOG.errorf(e, "Erro inesperado ao gerar documento para template: %s", request.getTemplateName());
+            documentMetrics.recordError(template != null ? template.getName() : null, e);
+            throw new DocumentGenerationException(request.getTemplateName(), e.getMessage(), e);
+        }
+    }
 
-            String processedContent = processTemplate(template, request);
+    /**
+     * Obtém um template ativo, para gerar vários documentos sem o resolver de novo em cada um
+     */
+    public Template resolveActiveTemplate(String templateName) {
+        long start = System.nanoTime();
+        Template template = templateService.findByNameOrThrow(templateName);
+        validateTemplateIsActive(template);
+        documentMetrics.recordStage(GenerationStage.RESOLVE, template.getName(), template.getType(),
+                System.nanoTime() - start);
+        return template;
+    }
+
+    /**
+     * Prepara um documento para um template já resolvido (ver resolveActiveTemplate)
+     */
+    public PreparedDocument prepare(DocumentRequest request, Template template) {
+        try {
+            documentValidator.validateDocumentRequest(request);
+
+            return doPrepare(request, template);
 
-            byte[] document = generateDocumentByType(template, processedContent, request);
-            
-            LOG.infof("Documento gerado com sucesso - template: %s, tamanho: %d bytes", 
-                     template.getName(), document.length);
-            
-            return document;
-            
         } catch (BusinessException e) {
             LOG.warnf("Erro de negócio ao gerar documento: %s", e.getMessage());
+            documentMetrics.recordError(template.getName(), e);
             throw e;
         } catch (Exception e) {
             LOG.errorf(e, "Erro inesperado ao gerar documento para template: %s", request.getTemplateName());
+            documentMetrics.recordError(template.getName(), e);
             throw new DocumentGenerationException(request.getTemplateName(), e.getMessage(), e);
         }
     }
 
+    private PreparedDocument doPrepare(DocumentRequest request, Template template) {
+        DocumentGenerator generator = generatorFactory.getGenerator(template.getType());
+        String filename = buildFilename(request, template.getType());
+        String contentType = getContentTypeByDocumentType(template.getType());
+
+        String cacheKey = null;
+        if (renderedDocumentCache.isEnabled()) {
+            cacheKey = renderedDocumentCache.keyOf(template, request);
+            Optional<CachedDocument> cached = renderedDocumentCache.get(cacheKey);
+            if (cached.isPresent()) {
+                LOG.debugf("Documento encontrado no cache - template: %s, tamanho: %d bytes",
+                        template.getName(), cached.get().size());
+                // Se a entrada for removida entretanto, é descartada e o documento é gerado (e guardado) novamente
+                Supplier<PreparedDocument.Generation> regenerate = () -> newGeneration(template, request, generator);
+                return new PreparedDocument(template.getName(), template.getType(), filename, contentType,
+                        regenerate, cached.get(), cacheKey, renderedDocumentCache);
+            }
+        }
+
+        PreparedDocument.Generation generation = newGeneration(template, request, generator);
+
+        return new PreparedDocument(template.getName(), template.getType(), filename, contentType,
+                () -> generation, null, cacheKey, renderedDocumentCache);
+    }
+
+    private PreparedDocument.Generation newGeneration(Template template, DocumentRequest request,
+                                                     DocumentGenerator generator) {
+        // Em pipeline, a validação dos dados acontece já aqui; o template é processado quando o gerador o lê
+        PreparedDocument.ProcessedContent content = pipelinedRendering && generator.supportsStreamingInput()
+                ? new PreparedDocument.ProcessedContent.Pipelined(newTemplateInstance(template, request), pipeBufferSize)
+                : new PreparedDocument.ProcessedContent.Rendered(processTemplate(template, request));
+        return new PreparedDocument.Generation(
+                template.getName(), template.getType(), content, request, generator, documentMetrics);
+    }
+
     /**
      * Gera um documento em formato Base64
      */
     public DocumentResponse generateBase64Document(@Valid DocumentRequest request) {
         LOG.infof("Gerando documento Base64 para template: %s", request.getTemplateName());
         
-        byte[] document = generateDocument(request);
-        String filename = buildFilename(request);
-        String base64Content = Base64.getEncoder().encodeToString(document);
+        GeneratedDocument document = generate(request);
+        String base64Content = Base64.getEncoder().encodeToString(document.getContent());
         
         DocumentResponse response = DocumentResponse.builder()
-                .filename(filename)
-                .contentType(getContentTypeByTemplate(request.getTemplateName()))
+                .filename(document.getFilename())
+                .contentType(document.getContentType())
                 .content(base64Content)
-                .size((long) document.length)
+                .size((long) document.getContent().length)
                 .templateName(request.getTemplateName())
                 .generatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
                 .build();
         
-        LOG.infof("Documento Base64 gerado - filename: %s, tamanho: %d bytes", filename, document.length);
+        LOG.infof("Documento Base64 gerado - filename: %s, tamanho: %d bytes", 
+                 document.getFilename(), document.getContent().length);
         
         return response;
     }
@@ -150,11 +297,7 @@ public class DocumentService {
      * Constrói o nome do arquivo baseado no request
      */
     public String buildFilename(DocumentRequest request) {
-        String filename = request.getTemplateName();
-        
-        if (request.getOptions() != null && request.getOptions().getFilename() != null) {
-            filename = request.getOptions().getFilename();
-        }
+        String filename = resolveBaseFilename(request);
 
         String extension = getFileExtensionByTemplate(request.getTemplateName());
         if (!filename.toLowerCase().endsWith(extension)) {
@@ -164,31 +307,42 @@ public class DocumentService {
         return filename;
     }
 
+    /**
+     * Constrói o nome do arquivo a partir do tipo de documento já resolvido
+     */
+    private String buildFilename(DocumentRequest request, DocumentType type) {
+        String filename = resolveBaseFilename(request);
+
+        String extension = getFileExtensionByDocumentType(type);
+        if (!filename.toLowerCase().endsWith(extension)) {
+            filename += extension;
+        }
+
+        return filename;
+    }
+
+    private String resolveBaseFilename(DocumentRequest request) {
+        if (request.getOptions() != null && request.getOptions().getFilename() != null) {
+            return request.getOptions().getFilename();
+        }
+        return request.getTemplateName();
+    }
+
     /**
      * Processa o template com os dados fornecidos usando Qute
      */
     private String processTemplate(Template template, DocumentRequest request) {
+        TemplateInstance instance = newTemplateInstance(template, request);
         try {
-            LOG.debugf("Processando template %s com Qute engine", template.getName());
+            long start = System.nanoTime();
+            String processedContent = instance.render();
+            documentMetrics.recordStage(GenerationStage.RENDER, template.getName(), template.getType(),
+                    System.nanoTime() - start);
 
-            Map<String, Object> dataMap = convertJsonNodeToMap(request.getData());
-            LOG.debugf("Dados convertidos para Map com %d chaves", dataMap.size());
-
-            // Validar campos obrigatórios
-            requiredFieldsValidator.validateRequiredFields(template, dataMap);
-            
-            // Processar template
-            String processedContent = quteEngine.parse(template.getContent())
-                    .data(dataMap)
-                    .render();
-                    
             LOG.debugf("Template processado com sucesso - tamanho: %d caracteres", processedContent.length());
-            
+
             return processedContent;
-            
-        } catch (RequiredFieldsValidationException e) {
-            LOG.warnf("Campos obrigatórios não fornecidos para template %s: %s", template.getName(), e.getMessage());
-            throw e;
+
         } catch (Exception e) {
             LOG.errorf(e, "Erro ao processar template %s", template.getName());
             throw new TemplateProcessingException(template.getName(), e.getMessage(), e);
@@ -196,47 +350,45 @@ public class DocumentService {
     }
 
     /**
-     * Gera documento baseado no tipo do template
+     * Valida os dados e prepara a instância do template, pronta a processar.
+     * Os dados JSON são passados diretamente ao template (ver JsonNodeValueResolver), sem conversão para Map.
      */
-    private byte[] generateDocumentByType(Template template, String processedContent, DocumentRequest request) {
+    private TemplateInstance newTemplateInstance(Template template, DocumentRequest request) {
         try {
-            DocumentGenerator generator = generatorFactory.getGenerator(template.getType());
-            
-            LOG.debugf("Gerando documento do tipo %s usando %s", 
-                      template.getType(), generator.getClass().getSimpleName());
-            
-            byte[] result = generator.generate(processedContent, request);
-            
-            LOG.debugf("Documento %s gerado com sucesso - tamanho: %d bytes", 
-                      template.getType(), result.length);
-            
-            return result;
-            
+            LOG.debugf("Processando template %s com Qute engine", template.getName());
+
+            JsonNode data = requireObjectData(request.getData());
+
+            // Validar campos obrigatórios
+            long start = System.nanoTime();
+            requiredFieldsValidator.validateRequiredFields(
+                    template, compiledTemplateCache.getRequiredFields(template), data);
+            documentMetrics.recordStage(GenerationStage.VALIDATION, template.getName(), template.getType(),
+                    System.nanoTime() - start);
+
+            return compiledTemplateCache.getOrCompile(template).data(data);
+
+        } catch (RequiredFieldsValidationException e) {
+            LOG.warnf("Campos obrigatórios não fornecidos para template %s: %s", template.getName(), e.getMessage());
+            throw e;
         } catch (Exception e) {
-            LOG.errorf(e, "Erro ao gerar documento do tipo %s", template.getType());
-            throw new DocumentGenerationException(template.getName(), e.getMessage(), e);
+            LOG.errorf(e, "Erro ao processar template %s", template.getName());
+            throw new TemplateProcessingException(template.getName(), e.getMessage(), e);
         }
     }
 
     /**
-     * Converte JsonNode para Map
+     * Garante que os dados são um objeto JSON, usado como raiz do template
      */
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> convertJsonNodeToMap(JsonNode jsonNode) {
-        try {
-            if (jsonNode == null) {
-                throw new DataConversionException("JsonNode não pode ser nulo");
-            }
-            
-            Map<String, Object> result = objectMapper.convertValue(jsonNode, Map.class);
-            LOG.debugf("JsonNode convertido para Map com %d entradas", result.size());
-            
-            return result;
-            
-        } catch (Exception e) {
-            LOG.errorf(e, "Erro ao converter JsonNode para Map");
-            throw new DataConversionException("Erro na conversão de dados: " + e.getMessage(), e);
+    private JsonNode requireObjectData(JsonNode jsonNode) {
+        if (jsonNode == null) {
+            throw new DataConversionException("JsonNode não pode ser nulo");
+        }
+        if (!jsonNode.isObject()) {
+            throw new DataConversionException("Erro na conversão de dados: esperado um objeto JSON mas foi recebido "
+                    + jsonNode.getNodeType());
         }
+        return jsonNode;
     }
 
     /**
@@ -0,0 +1,98 @@
+package pt.ama.service;
+
+import io.quarkus.qute.TemplateInstance;
+import org.jboss.logging.Logger;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Processa um template Qute numa thread virtual, escrevendo o resultado por blocos num pipe limitado
+ * que o gerador lê como Reader.
+ * <p>
+ * O TemplateInstance.consume resolve toda a árvore de resultados do Qute antes de emitir o primeiro
+ * bloco, e o html2pdf lê o HTML por completo antes de converter: o conteúdo processado continua em
+ * memória (na árvore de resultados) e o processamento não se sobrepõe à conversão. Este modo evita
+ * apenas a cópia do resultado para uma String única, ao custo de uma thread virtual e de um pipe.
+ */
+final class PipelinedRendering {
+
+    private static final Logger LOG = Logger.getLogger(PipelinedRendering.class);
+
+    private PipelinedRendering() {
+    }
+
+    /**
+     * Inicia o processamento do template e devolve o Reader do conteúdo.
+     * Se o processamento falhar, a leitura termina com IOException em vez de fim de stream;
+     * fechar o Reader antes do fim interrompe o processamento.
+     */
+    static Reader start(String templateName, TemplateInstance instance, int bufferSize) throws IOException {
+        PipedReader pipe = new PipedReader(bufferSize);
+        PipedWriter writer = new PipedWriter(pipe);
+        RenderReader reader = new RenderReader(pipe, templateName);
+
+        Thread.ofVirtual().name("template-render-" + templateName).start(() -> {
+            try {
+                instance.consume(chunk -> {
+                    try {
+                        writer.write(chunk);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).toCompletableFuture().join();
+            } catch (Throwable e) {
+                reader.failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                LOG.debugf("Processamento em pipeline do template %s interrompido: %s", templateName, e.getMessage());
+            } finally {
+                closeQuietly(writer);
+            }
+        });
+
+        return reader;
+    }
+
+    private static void closeQuietly(PipedWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOG.debugf("Erro ao fechar pipe de processamento: %s", e.getMessage());
+        }
+    }
+
+    private static final class RenderReader extends FilterReader {
+
+        private final String templateName;
+        private volatile Throwable failure;
+
+        RenderReader(Reader in, String templateName) {
+            super(in);
+            this.templateName = templateName;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checkEnd(super.read());
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return checkEnd(super.read(buffer, offset, length));
+        }
+
+        /**
+         * O writer só fecha o pipe depois de registar a falha, pelo que no fim do stream ela já é visível
+         */
+        private int checkEnd(int read) throws IOException {
+            if (read == -1 && failure != null) {
+                throw new IOException("Erro ao processar template " + templateName + ": " + failure.getMessage(), failure);
+            }
+            return read;
+        }
+    }
+}
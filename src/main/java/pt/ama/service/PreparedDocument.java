@@ -0,0 +1,207 @@
+package pt.ama.service;
+
+import io.quarkus.qute.TemplateInstance;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.jboss.logging.Logger;
+import pt.ama.dto.DocumentRequest;
+import pt.ama.exception.DocumentGenerationException;
+import pt.ama.model.DocumentType;
+import pt.ama.service.cache.CachedDocument;
+import pt.ama.service.cache.RenderedDocumentCache;
+import pt.ama.service.generator.DocumentGenerator;
+import pt.ama.service.metrics.DocumentMetrics;
+import pt.ama.service.metrics.GenerationStage;
+import pt.ama.util.CountingOutputStream;
+import pt.ama.util.TeeOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.NoSuchFileException;
+import java.util.function.Supplier;
+
+/**
+ * Documento pronto a gerar: template resolvido e processado, gerador escolhido e metadados conhecidos.
+ * Permite validar o pedido antes de a resposta começar a ser escrita e gerar depois diretamente num stream.
+ * Quando o resultado já está no RenderedDocumentCache, é servido a partir do cache.
+ */
+@Getter
+public class PreparedDocument {
+
+    private static final Logger LOG = Logger.getLogger(PreparedDocument.class);
+
+    private final String templateName;
+    private final DocumentType documentType;
+    private final String filename;
+    private final String contentType;
+
+    @Getter(AccessLevel.NONE)
+    private final Supplier<Generation> generation;
+
+    @Getter(AccessLevel.NONE)
+    private final CachedDocument cached;
+
+    @Getter(AccessLevel.NONE)
+    private final String cacheKey;
+
+    @Getter(AccessLevel.NONE)
+    private final RenderedDocumentCache cache;
+
+    PreparedDocument(String templateName, DocumentType documentType, String filename, String contentType,
+                     Supplier<Generation> generation, CachedDocument cached, String cacheKey, RenderedDocumentCache cache) {
+        this.templateName = templateName;
+        this.documentType = documentType;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.generation = generation;
+        this.cached = cached;
+        this.cacheKey = cacheKey;
+        this.cache = cache;
+    }
+
+    public boolean isCached() {
+        return cached != null;
+    }
+
+    /**
+     * Gera o documento completo em memória
+     */
+    byte[] toBytes() {
+        if (cached != null) {
+            try {
+                return cached.toBytes();
+            } catch (IOException e) {
+                discardCached(e);
+            }
+        }
+
+        byte[] document = generation.get().toBytes();
+        if (cacheKey != null) {
+            cache.put(cacheKey, document);
+        }
+        return document;
+    }
+
+    /**
+     * Gera o documento no stream de saída (que não é fechado)
+     */
+    public void writeTo(OutputStream output) {
+        if (cached != null && writeCached(output)) {
+            return;
+        }
+
+        if (cacheKey == null) {
+            generation.get().writeTo(output);
+            return;
+        }
+
+        RenderedDocumentCache.EntryWriter entry;
+        try {
+            entry = cache.newEntry(cacheKey);
+        } catch (IOException e) {
+            LOG.debugf("Cache em disco indisponível: %s", e.getMessage());
+            generation.get().writeTo(output);
+            return;
+        }
+
+        try {
+            generation.get().writeTo(new TeeOutputStream(output, entry));
+            entry.commit();
+        } catch (RuntimeException e) {
+            entry.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Descarta a entrada do cache que não pôde ser lida. Um ficheiro inexistente é esperado: a
+     * eviction pode removê-lo entre o get e a leitura; os restantes erros de leitura não.
+     */
+    private void discardCached(IOException e) {
+        if (e instanceof NoSuchFileException) {
+            LOG.debugf("Documento em cache removido entretanto (%s), gerando novamente", e.getMessage());
+        } else {
+            LOG.warnf("Documento em cache indisponível (%s), gerando novamente", e.getMessage());
+        }
+        cache.invalidate(cacheKey, cached);
+    }
+
+    /**
+     * Copia o documento do cache. Devolve false, sem nada escrito, se a entrada já não existir.
+     */
+    private boolean writeCached(OutputStream output) {
+        InputStream input;
+        try {
+            input = cached.open();
+        } catch (IOException e) {
+            discardCached(e);
+            return false;
+        }
+
+        try (input) {
+            input.transferTo(output);
+            return true;
+        } catch (IOException e) {
+            throw new DocumentGenerationException(templateName, "Erro ao enviar documento do cache: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Conteúdo processado do template: já renderizado numa String ou, em pipeline, processado
+     * à medida que o gerador o lê (ver PipelinedRendering)
+     */
+    sealed interface ProcessedContent {
+
+        record Rendered(String content) implements ProcessedContent {
+        }
+
+        record Pipelined(TemplateInstance instance, int bufferSize) implements ProcessedContent {
+        }
+    }
+
+    /**
+     * Geração efetiva do documento a partir do conteúdo processado.
+     * Em pipeline, a duração registada inclui o processamento do template.
+     */
+    record Generation(String templateName, DocumentType documentType, ProcessedContent content,
+                      DocumentRequest request, DocumentGenerator generator, DocumentMetrics metrics) {
+
+        byte[] toBytes() {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            writeTo(output);
+            return output.toByteArray();
+        }
+
+        void writeTo(OutputStream output) {
+            try {
+                LOG.debugf("Gerando documento do tipo %s usando %s",
+                          documentType, generator.getClass().getSimpleName());
+
+                long start = System.nanoTime();
+                CountingOutputStream countingOutput = new CountingOutputStream(output);
+
+                switch (content) {
+                    case ProcessedContent.Rendered rendered ->
+                            generator.generate(rendered.content(), request, countingOutput);
+                    case ProcessedContent.Pipelined pipelined -> {
+                        try (Reader reader = PipelinedRendering.start(
+                                templateName, pipelined.instance(), pipelined.bufferSize())) {
+                            generator.generate(reader, request, countingOutput);
+                        }
+                    }
+                }
+
+                metrics.recordStage(GenerationStage.GENERATION, templateName, documentType, System.nanoTime() - start);
+                metrics.recordBytes(templateName, documentType, countingOutput.getCount());
+
+            } catch (Exception e) {
+                LOG.errorf(e, "Erro ao gerar documento do tipo %s", documentType);
+                metrics.recordError(templateName, e);
+                throw new DocumentGenerationException(templateName, e.getMessage(), e);
+            }
+        }
+    }
+}
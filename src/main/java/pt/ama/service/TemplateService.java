@@ -9,6 +9,8 @@ import pt.ama.model.DocumentStatus;
 import pt.ama.model.DocumentType;
 import pt.ama.model.Template;
 import pt.ama.repository.TemplateRepository;
+import pt.ama.service.cache.CompiledTemplateCache;
+import pt.ama.service.cache.TemplateCache;
 import pt.ama.service.validation.TemplateValidator;
 import org.jboss.logging.Logger;
 
@@ -29,6 +31,12 @@ public class TemplateService {
     @Inject
     TemplateValidator templateValidator;
 
+    @Inject
+    CompiledTemplateCache compiledTemplateCache;
+
+    @Inject
+    TemplateCache templateCache;
+
     public List<Template> findAll() {
         LOG.debug("Buscando todos os templates");
         return templateRepository.listAll();
@@ -36,7 +44,7 @@ public class TemplateService {
 
     public Template findByName(String name) {
         LOG.debugf("Buscando template com nome: %s", name);
-        return templateRepository.findByName(name);
+        return templateCache.get(name, templateRepository::findByName);
     }
 
     public Template findByNameOrThrow(String name) {
@@ -70,12 +78,14 @@ public class TemplateService {
         templateValidator.validateForCreation(request);
 
         Template template = templateMapper.toEntity(request);
+        template.setNameKey(Template.toNameKey(template.getName()));
         template.setCreatedAt(LocalDateTime.now());
         template.setUpdatedAt(LocalDateTime.now());
         template.setActive(true);
         template.setStatus(DocumentStatus.RASCUNHO);
 
         templateRepository.persist(template);
+        templateCache.invalidate(template.getName());
 
         LOG.infof("Template criado com sucesso: %s", template.getName());
         return template;
@@ -84,13 +94,17 @@ public class TemplateService {
     public Template updateTemplate(String name, TemplateRequest request) {
         LOG.infof("Atualizando template: %s", name);
 
-        Template existingTemplate = findByNameOrThrow(name);
+        Template existingTemplate = findByNameForWrite(name);
         templateValidator.validateForUpdate(name, request);
 
         templateMapper.updateEntity(existingTemplate, request);
+        existingTemplate.setNameKey(Template.toNameKey(existingTemplate.getName()));
         existingTemplate.setUpdatedAt(LocalDateTime.now());
 
         templateRepository.persist(existingTemplate);
+        templateCache.invalidate(name);
+        templateCache.invalidate(existingTemplate.getName());
+        compiledTemplateCache.invalidate(existingTemplate);
 
         LOG.infof("Template atualizado com sucesso: %s", existingTemplate.getName());
         return existingTemplate;
@@ -99,11 +113,13 @@ public class TemplateService {
     public void deleteTemplate(String name) {
         LOG.infof("Removendo template: %s", name);
 
-        Template template = findByNameOrThrow(name);
+        Template template = findByNameForWrite(name);
 
         validateTemplateCanBeDeleted(template);
 
         templateRepository.delete(template);
+        templateCache.invalidate(name);
+        compiledTemplateCache.invalidate(template);
 
         LOG.infof("Template removido com sucesso: %s", name);
     }
@@ -112,6 +128,19 @@ public class TemplateService {
         return templateRepository.existsByName(name);
     }
 
+    /**
+     * Busca o template diretamente no repositório, sem passar pelo cache,
+     * para que a instância partilhada em cache nunca seja alterada
+     */
+    private Template findByNameForWrite(String name) {
+        Template template = templateRepository.findByName(name);
+        if (template == null) {
+            LOG.warnf("Template não encontrado: %s", name);
+            throw new TemplateNotFoundException(name);
+        }
+        return template;
+    }
+
     private void validateTemplateCanBeDeleted(Template template) {
         if (!template.isActive()) {
             LOG.warnf("Tentativa de remover template já inativo: %s", template.getName());
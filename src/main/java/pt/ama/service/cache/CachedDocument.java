@@ -0,0 +1,40 @@
+package pt.ama.service.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Documento gerado guardado no RenderedDocumentCache: em memória (content) ou em disco (file)
+ */
+public record CachedDocument(byte[] content, Path file, long size) {
+
+    static CachedDocument inMemory(byte[] content) {
+        return new CachedDocument(content, null, content.length);
+    }
+
+    static CachedDocument onDisk(Path file, long size) {
+        return new CachedDocument(null, file, size);
+    }
+
+    public byte[] toBytes() throws IOException {
+        return content != null ? content : Files.readAllBytes(file);
+    }
+
+    /**
+     * Abre o conteúdo para leitura. Aberto o ficheiro, a leitura sobrevive a uma remoção
+     * concorrente da entrada do cache.
+     */
+    public InputStream open() throws IOException {
+        return content != null ? new ByteArrayInputStream(content) : Files.newInputStream(file);
+    }
+
+    public void writeTo(OutputStream output) throws IOException {
+        try (InputStream input = open()) {
+            input.transferTo(output);
+        }
+    }
+}
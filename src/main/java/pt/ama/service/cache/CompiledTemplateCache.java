@@ -0,0 +1,107 @@
+package pt.ama.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.qute.Engine;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import pt.ama.model.Template;
+import pt.ama.service.validation.RequiredFieldSet;
+import pt.ama.service.validation.RequiredFieldsValidator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cache de templates Qute já compilados, chaveado por id + versão + data de atualização.
+ * Guarda também, com a mesma chave, os campos obrigatórios compilados de cada versão.
+ */
+@ApplicationScoped
+public class CompiledTemplateCache {
+
+    private static final Logger LOG = Logger.getLogger(CompiledTemplateCache.class);
+    private static final String CACHE_NAME = "compiled-templates";
+    private static final String REQUIRED_FIELDS_CACHE_NAME = "compiled-required-fields";
+
+    @Inject
+    Engine quteEngine;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "template.cache.compiled.max-size", defaultValue = "500")
+    long maxSize;
+
+    private Cache<CacheKey, io.quarkus.qute.Template> cache;
+    private Cache<CacheKey, RequiredFieldSet> requiredFieldsCache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        requiredFieldsCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, requiredFieldsCache, REQUIRED_FIELDS_CACHE_NAME);
+
+        LOG.infof("Cache de templates compilados inicializado - tamanho máximo: %d", maxSize);
+    }
+
+    /**
+     * Obtém o template compilado, compilando-o apenas no primeiro uso
+     */
+    public io.quarkus.qute.Template getOrCompile(Template template) {
+        return cache.get(CacheKey.of(template), key -> compile(template));
+    }
+
+    /**
+     * Obtém os campos obrigatórios compilados do template, compilando-os apenas no primeiro uso
+     */
+    public RequiredFieldSet getRequiredFields(Template template) {
+        return requiredFieldsCache.get(CacheKey.of(template), key -> RequiredFieldsValidator.compile(template));
+    }
+
+    /**
+     * Remove todas as versões compiladas de um template
+     */
+    public void invalidate(Template template) {
+        String templateId = CacheKey.idOf(template);
+        requiredFieldsCache.asMap().keySet().removeIf(key -> key.templateId().equals(templateId));
+        boolean removed = cache.asMap().keySet().removeIf(key -> key.templateId().equals(templateId));
+
+        if (removed) {
+            LOG.debugf("Template compilado removido do cache: %s", template.getName());
+        }
+    }
+
+    private io.quarkus.qute.Template compile(Template template) {
+        LOG.debugf("Compilando template %s (versão %s)", template.getName(), template.getVersion());
+        return quteEngine.parse(template.getContent());
+    }
+
+    /**
+     * Chave do cache: qualquer alteração de versão ou data de atualização gera uma nova entrada
+     */
+    record CacheKey(String templateId, BigDecimal version, LocalDateTime updatedAt) {
+
+        static CacheKey of(Template template) {
+            BigDecimal version = template.getVersion() != null ? template.getVersion().stripTrailingZeros() : null;
+            return new CacheKey(idOf(template), version, template.getUpdatedAt());
+        }
+
+        static String idOf(Template template) {
+            return template.getId() != null ? template.getId().toHexString() : template.getName();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package pt.ama.service.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import pt.ama.dto.DocumentRequest;
+import pt.ama.model.Template;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cache de documentos gerados, endereçado pelo conteúdo do pedido: template (id, versão, atualização),
+ * dados em JSON canónico e opções. Documentos pequenos ficam em memória; os maiores ficam em disco,
+ * com o espaço total limitado e os ficheiros removidos na eviction.
+ */
+@ApplicationScoped
+public class RenderedDocumentCache {
+
+    private static final Logger LOG = Logger.getLogger(RenderedDocumentCache.class);
+    private static final String HEAP_CACHE_NAME = "rendered-documents-heap";
+    private static final String DISK_CACHE_NAME = "rendered-documents-disk";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "document.cache.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "document.cache.ttl", defaultValue = "1H")
+    Duration ttl;
+
+    @ConfigProperty(name = "document.cache.heap.max-size", defaultValue = "64M")
+    MemorySize heapMaxSize;
+
+    @ConfigProperty(name = "document.cache.disk.threshold", defaultValue = "512K")
+    MemorySize diskThreshold;
+
+    @ConfigProperty(name = "document.cache.disk.max-size", defaultValue = "2G")
+    MemorySize diskMaxSize;
+
+    @ConfigProperty(name = "document.cache.disk.directory", defaultValue = "${java.io.tmpdir}/sistemplate-rendered")
+    String diskDirectory;
+
+    private Cache<String, byte[]> heapCache;
+    private Cache<String, CachedDocument> diskCache;
+    private Path root;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            LOG.debug("Cache de documentos gerados desativado");
+            return;
+        }
+
+        heapCache = Caffeine.newBuilder()
+                .maximumWeight(heapMaxSize.asLongValue())
+                .weigher((String key, byte[] content) -> content.length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        root = Paths.get(diskDirectory);
+        clearDirectory();
+
+        diskCache = Caffeine.newBuilder()
+                .maximumWeight(diskMaxSize.asLongValue())
+                .weigher((String key, CachedDocument document) -> (int) Math.min(document.size(), Integer.MAX_VALUE))
+                .expireAfterWrite(ttl)
+                .removalListener((String key, CachedDocument document, RemovalCause cause) -> deleteFile(document))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, heapCache, HEAP_CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, diskCache, DISK_CACHE_NAME);
+
+        LOG.infof("Cache de documentos gerados inicializado - memória: %s, disco: %s em %s (a partir de %s)",
+                heapMaxSize, diskMaxSize, root, diskThreshold);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Chave SHA-256 do pedido. Os campos de objetos JSON são ordenados, pelo que
+     * a ordem dos campos em data e options não altera a chave.
+     */
+    public String keyOf(Template template, DocumentRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (JsonGenerator generator = objectMapper.getFactory()
+                    .createGenerator(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+                generator.writeStartArray();
+                generator.writeString(CompiledTemplateCache.CacheKey.idOf(template));
+                generator.writeString(template.getVersion() != null ? template.getVersion().stripTrailingZeros().toPlainString() : null);
+                generator.writeString(template.getUpdatedAt() != null ? template.getUpdatedAt().toString() : null);
+                generator.writeString(template.getType() != null ? template.getType().name() : null);
+                writeCanonical(request.getData(), generator);
+                writeCanonical(request.getOptions() != null ? objectMapper.valueToTree(request.getOptions()) : null, generator);
+                generator.writeEndArray();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Optional<CachedDocument> get(String key) {
+        byte[] content = heapCache.getIfPresent(key);
+        if (content != null) {
+            return Optional.of(CachedDocument.inMemory(content));
+        }
+        return Optional.ofNullable(diskCache.getIfPresent(key));
+    }
+
+    public void put(String key, byte[] content) {
+        if (content.length < diskThreshold.asLongValue()) {
+            heapCache.put(key, content);
+            return;
+        }
+
+        Path temp = root.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            Files.write(temp, content);
+            commitFile(key, temp, content.length);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            LOG.warnf("Erro ao guardar documento no cache em disco: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Stream que grava o documento num ficheiro temporário enquanto é gerado; commit() publica-o
+     * no cache (em memória se ficar abaixo de disk.threshold, em disco caso contrário) e abort()
+     * descarta-o. Usado quando o tamanho final não é conhecido à partida.
+     */
+    public EntryWriter newEntry(String key) throws IOException {
+        Path temp = root.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+        return new EntryWriter(key, temp, Files.newOutputStream(temp));
+    }
+
+    /**
+     * Remove a entrada indicada, se ainda for a atual da chave: usado quando o ficheiro de uma entrada
+     * obtida em get já foi removido (eviction concorrente) ou não pode ser lido
+     */
+    public void invalidate(String key, CachedDocument document) {
+        if (document.file() != null) {
+            diskCache.asMap().remove(key, document);
+        } else {
+            heapCache.asMap().remove(key, document.content());
+        }
+    }
+
+    private void commitFile(String key, Path temp, long size) throws IOException {
+        if (size < diskThreshold.asLongValue()) {
+            byte[] content = Files.readAllBytes(temp);
+            deleteQuietly(temp);
+            heapCache.put(key, content);
+            return;
+        }
+
+        Path file = root.resolve(key + "-" + UUID.randomUUID());
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        diskCache.put(key, CachedDocument.onDisk(file, size));
+    }
+
+    private void writeCanonical(JsonNode node, JsonGenerator generator) throws IOException {
+        if (node == null) {
+            generator.writeNull();
+        } else if (node.isObject()) {
+            List<String> fields = new ArrayList<>();
+            node.fieldNames().forEachRemaining(fields::add);
+            fields.sort(null);
+
+            generator.writeStartObject();
+            for (String field : fields) {
+                generator.writeFieldName(field);
+                writeCanonical(node.get(field), generator);
+            }
+            generator.writeEndObject();
+        } else if (node.isArray()) {
+            generator.writeStartArray();
+            for (Iterator<JsonNode> it = node.elements(); it.hasNext(); ) {
+                writeCanonical(it.next(), generator);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeTree(node);
+        }
+    }
+
+    private void clearDirectory() {
+        try {
+            Files.createDirectories(root);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+                files.forEach(this::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível preparar o diretório do cache de documentos: " + root, e);
+        }
+    }
+
+    private void deleteFile(CachedDocument document) {
+        if (document != null && document.file() != null) {
+            deleteQuietly(document.file());
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOG.debugf("Erro ao remover ficheiro do cache %s: %s", path, e.getMessage());
+        }
+    }
+
+    public final class EntryWriter extends FilterOutputStream {
+
+        private final String key;
+        private final Path temp;
+        private long size;
+        private boolean closed;
+
+        private EntryWriter(String key, Path temp, OutputStream output) {
+            super(output);
+            this.key = key;
+            this.temp = temp;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            size += len;
+        }
+
+        public void commit() {
+            try {
+                closeOutput();
+                commitFile(key, temp, size);
+            } catch (IOException e) {
+                abort();
+                LOG.warnf("Erro ao guardar documento no cache em disco: %s", e.getMessage());
+            }
+        }
+
+        public void abort() {
+            try {
+                closeOutput();
+            } catch (IOException e) {
+                LOG.debugf("Erro ao fechar ficheiro temporário do cache: %s", e.getMessage());
+            }
+            deleteQuietly(temp);
+        }
+
+        private void closeOutput() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package pt.ama.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import pt.ama.model.Template;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache read-through de entidades Template, chaveado pelo nome (sem distinção de maiúsculas)
+ */
+@ApplicationScoped
+public class TemplateCache {
+
+    private static final Logger LOG = Logger.getLogger(TemplateCache.class);
+    private static final String CACHE_NAME = "templates";
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "template.cache.entity.max-size", defaultValue = "200")
+    long maxSize;
+
+    @ConfigProperty(name = "template.cache.entity.ttl", defaultValue = "5M")
+    Duration ttl;
+
+    private Cache<String, Template> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        LOG.infof("Cache de templates inicializado - tamanho máximo: %d, ttl: %s", maxSize, ttl);
+    }
+
+    /**
+     * Obtém o template do cache ou carrega-o com o loader fornecido.
+     * Resultados nulos (template inexistente) não são guardados.
+     */
+    public Template get(String name, Function<String, Template> loader) {
+        return cache.get(keyOf(name), key -> loader.apply(name));
+    }
+
+    /**
+     * Remove um template do cache
+     */
+    public void invalidate(String name) {
+        if (name != null) {
+            cache.invalidate(keyOf(name));
+            LOG.debugf("Template removido do cache: %s", name);
+        }
+    }
+
+    /**
+     * Mesma normalização do nameKey persistido, para que leitura e invalidação usem a mesma chave
+     */
+    private String keyOf(String name) {
+        return Template.toNameKey(name);
+    }
+}
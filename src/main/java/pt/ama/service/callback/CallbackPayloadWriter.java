@@ -0,0 +1,60 @@
+package pt.ama.service.callback;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import pt.ama.model.CallbackOutboxEntry;
+import pt.ama.model.CallbackOutboxEntry.CallbackType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Escreve o JSON dos callbacks diretamente num OutputStream. O documento é lido do stream indicado
+ * e codificado em Base64 pelo próprio gerador, por blocos, sem criar a String Base64 nem o corpo
+ * completo em memória.
+ */
+public class CallbackPayloadWriter {
+
+    private final JsonFactory jsonFactory;
+
+    public CallbackPayloadWriter(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Escreve o payload sem fechar o stream de saída; se a escrita falhar, o JSON não é completado,
+     * para que quem lê não confunda um corpo truncado com um completo
+     *
+     * @param document conteúdo do documento (entry.getSize() bytes) nos callbacks com entrega inline;
+     *                 ignorado nos restantes
+     */
+    public void write(CallbackOutboxEntry entry, InputStream document, OutputStream output) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(output, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+            generator.writeStartObject();
+            generator.writeStringField("eventId", entry.getEventId());
+
+            if (entry.getType() == CallbackType.DOCUMENT) {
+                generator.writeStringField("status", "SUCCESS");
+                generator.writeStringField("filename", entry.getFilename());
+                generator.writeStringField("contentType", entry.getContentType());
+                if (entry.getDownloadUrl() != null) {
+                    generator.writeNumberField("size", entry.getSize());
+                    generator.writeStringField("downloadUrl", entry.getDownloadUrl());
+                    generator.writeStringField("expiresAt", entry.getExpiresAt().toString());
+                } else {
+                    generator.writeFieldName("document");
+                    generator.writeBinary(document, Math.toIntExact(entry.getSize()));
+                }
+            } else {
+                generator.writeStringField("status", "ERROR");
+                generator.writeStringField("message", entry.getErrorMessage());
+            }
+
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package pt.ama.service.callback;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker simples por host de callback: abre após N falhas consecutivas,
+ * permite um pedido de teste após o período de abertura e fecha no primeiro sucesso.
+ */
+public class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Indica se um pedido pode ser enviado. Com o circuito aberto e o período expirado,
+     * deixa passar um único pedido de teste (half-open).
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Tempo até o circuito aceitar um novo pedido de teste
+     */
+    public synchronized Duration remainingOpenTime() {
+        if (state == State.CLOSED) {
+            return Duration.ZERO;
+        }
+        long remaining = openDurationNanos - (System.nanoTime() - openedAt);
+        return Duration.ofNanos(Math.max(remaining, 0));
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -2,25 +2,75 @@ package pt.ama.service.generator;
 
 import pt.ama.dto.DocumentRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
 /**
- * Interface base para todos os geradores de documento
+ * Interface base para todos os geradores de documento.
+ * O método principal escreve o documento num OutputStream; as variantes byte[] e Reader são adaptadores.
  */
 public interface DocumentGenerator {
-    
+
+    /**
+     * Gera o documento escrevendo-o diretamente no stream de saída, sem o fechar
+     *
+     * @param processedContent Conteúdo já processado pelo template engine
+     * @param request Request original com dados e opções
+     * @param output Destino do documento gerado
+     */
+    void generate(CharSequence processedContent, DocumentRequest request, OutputStream output);
+
+    /**
+     * Gera o documento a partir de conteúdo lido de um Reader (por exemplo, à medida que o template é processado).
+     * Por omissão lê o conteúdo completo; geradores capazes de consumir o conteúdo em streaming devem sobrepor este método.
+     *
+     * @param processedContent Conteúdo processado pelo template engine
+     * @param request Request original com dados e opções
+     * @param output Destino do documento gerado
+     */
+    default void generate(Reader processedContent, DocumentRequest request, OutputStream output) {
+        StringBuilder content = new StringBuilder();
+        char[] buffer = new char[8192];
+        try {
+            int read;
+            while ((read = processedContent.read(buffer)) != -1) {
+                content.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler conteúdo processado", e);
+        }
+        generate(content, request, output);
+    }
+
+    /**
+     * Indica se a variante Reader consome o conteúdo em streaming; nesse caso o template processado
+     * pode ser entregue ao gerador por um pipe, sem cópia para uma String (ver PipelinedRendering)
+     */
+    default boolean supportsStreamingInput() {
+        return false;
+    }
+
     /**
      * Gera um documento baseado no conteúdo processado e request
-     * 
+     *
      * @param processedContent Conteúdo já processado pelo template engine
      * @param request Request original com dados e opções
      * @return Array de bytes do documento gerado
      */
-    byte[] generate(String processedContent, DocumentRequest request);
-    
+    default byte[] generate(String processedContent, DocumentRequest request) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        generate((CharSequence) processedContent, request, output);
+        return output.toByteArray();
+    }
+
     /**
      * Retorna o tipo de documento que este gerador suporta
      */
     String getSupportedType();
-    
+
     /**
      * Valida se o conteúdo é válido para este tipo de gerador
      */
@@ -29,4 +79,4 @@ public interface DocumentGenerator {
             throw new IllegalArgumentException("Conteúdo não pode ser nulo ou vazio");
         }
     }
-}
\ No newline at end of file
+}
@@ -10,6 +10,7 @@ import org.jboss.logging.Logger;
 import pt.ama.dto.DocumentRequest;
 import pt.ama.exception.EmailGenerationException;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -30,7 +31,8 @@ public class EmailGenerator implements DocumentGenerator {
     private static final int MAX_CONTENT_LENGTH = 1_000_000;
 
     @Override
-    public byte[] generate(String processedContent, DocumentRequest request) {
+    public void generate(CharSequence content, DocumentRequest request, OutputStream output) {
+        String processedContent = content != null ? content.toString() : null;
         LOG.infof("Iniciando geração de email - tamanho do conteúdo: %d caracteres", processedContent.length());
         
         try {
@@ -43,7 +45,7 @@ public class EmailGenerator implements DocumentGenerator {
             
             LOG.infof("Email gerado com sucesso - destinatário: %s", emailData.getTo());
             
-            return emailHtml.getBytes(StandardCharsets.UTF_8);
+            output.write(emailHtml.getBytes(StandardCharsets.UTF_8));
             
         } catch (Exception e) {
             LOG.errorf(e, "Erro ao gerar email");
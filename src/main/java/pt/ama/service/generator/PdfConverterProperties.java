@@ -0,0 +1,101 @@
+package pt.ama.service.generator;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.layout.font.FontProvider;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Configuração partilhada do conversor HTML para PDF. O FontProvider (a parte cara: leitura e
+ * parsing das fontes) é criado uma vez no arranque e partilhado; cada conversão recebe uma cópia
+ * própria de ConverterProperties, que é mutável e não deve ser partilhada entre threads.
+ */
+@ApplicationScoped
+public class PdfConverterProperties {
+
+    private static final Logger LOG = Logger.getLogger(PdfConverterProperties.class);
+    private static final String WARMUP_HTML = """
+            <html><head><style>body { font-family: sans-serif; } h1 { font-family: serif; }</style></head>
+            <body><h1>Aquecimento</h1><p>Conversão inicial: ç ã é € <b>negrito</b> <i>itálico</i></p>
+            <table><tr><td>1</td><td>2</td></tr></table></body></html>
+            """;
+
+    @ConfigProperty(name = "pdf.fonts.directories")
+    Optional<List<String>> fontDirectories;
+
+    @ConfigProperty(name = "pdf.fonts.system-fonts", defaultValue = "false")
+    boolean registerSystemFonts;
+
+    @ConfigProperty(name = "pdf.warmup.enabled", defaultValue = "true")
+    boolean warmupEnabled;
+
+    private ConverterProperties baseProperties;
+
+    @PostConstruct
+    void init() {
+        long start = System.nanoTime();
+
+        FontProvider fontProvider = new DefaultFontProvider(true, true, registerSystemFonts);
+        fontDirectories.orElse(List.of()).forEach(directory -> addFontDirectory(fontProvider, directory));
+
+        baseProperties = new ConverterProperties();
+        baseProperties.setFontProvider(fontProvider);
+
+        LOG.infof("Fontes do conversor PDF carregadas em %d ms - %d fontes disponíveis",
+                (System.nanoTime() - start) / 1_000_000, fontProvider.getFontSet().size());
+    }
+
+    /**
+     * Converte um documento pequeno no arranque, para que a primeira geração real não pague
+     * a inicialização do iText (carregamento de classes, CSS por omissão, layout)
+     */
+    void onStart(@Observes StartupEvent event) {
+        if (!warmupEnabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            HtmlConverter.convertToPdf(
+                    new ByteArrayInputStream(WARMUP_HTML.getBytes(StandardCharsets.UTF_8)),
+                    OutputStream.nullOutputStream(),
+                    newProperties());
+            LOG.infof("Aquecimento do conversor PDF concluído em %d ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            LOG.warnf(e, "Falha no aquecimento do conversor PDF");
+        }
+    }
+
+    /**
+     * Nova instância de ConverterProperties para uma conversão, partilhando o FontProvider
+     */
+    public ConverterProperties newProperties() {
+        return new ConverterProperties(baseProperties);
+    }
+
+    private void addFontDirectory(FontProvider fontProvider, String directory) {
+        Path path = Paths.get(directory);
+        if (!Files.isDirectory(path)) {
+            LOG.warnf("Diretório de fontes não encontrado: %s", directory);
+            return;
+        }
+
+        int added = fontProvider.addDirectory(directory);
+        LOG.infof("Fontes carregadas de %s: %d", directory, added);
+    }
+}
@@ -6,11 +6,18 @@ import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 import pt.ama.dto.DocumentRequest;
 import pt.ama.exception.PdfGenerationException;
+import pt.ama.util.CountingOutputStream;
+import pt.ama.util.ReaderInputStream;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Gerador de documentos PDF melhorado com validações e configurações avançadas
@@ -22,18 +29,25 @@ public class PdfGenerator implements DocumentGenerator {
     private static final String SUPPORTED_TYPE = "PDF";
     private static final PageSize DEFAULT_PAGE_SIZE = PageSize.A4;
     private static final String DEFAULT_AUTHOR = "Sistema de Templates";
+    private static final int MAX_CONTENT_LENGTH = 10_000_000;
+    private static final String CONTENT_TOO_LARGE = "Conteúdo muito grande para geração de PDF (limite: 10MB)";
+
+    @Inject
+    PdfConverterProperties converterProperties;
 
     @Override
-    public byte[] generate(String processedContent, DocumentRequest request) {
+    public void generate(CharSequence processedContent, DocumentRequest request, OutputStream output) {
         LOG.infof("Iniciando geração de PDF - tamanho do conteúdo: %d caracteres", processedContent.length());
         
         try {
-            validateContent(processedContent);
-            validateHtmlContent(processedContent);
+            String htmlContent = processedContent.toString();
+            validateContent(htmlContent);
+            validateHtmlContent(htmlContent);
             
             DocumentRequest.PdfOptions options = extractPdfOptions(request);
             
-            return generatePdfDocument(processedContent, options);
+            generatePdfDocument(options, output,
+                    (pdfDocument, properties) -> HtmlConverter.convertToPdf(htmlContent, pdfDocument, properties));
             
         } catch (Exception e) {
             LOG.errorf(e, "Erro ao gerar PDF");
@@ -41,6 +55,35 @@ public class PdfGenerator implements DocumentGenerator {
         }
     }
 
+    /**
+     * Converte o HTML à medida que é lido, sem o materializar numa String.
+     * O limite de tamanho é verificado durante a leitura; a validação de estrutura aplica-se apenas
+     * à variante CharSequence.
+     */
+    @Override
+    public void generate(Reader processedContent, DocumentRequest request, OutputStream output) {
+        LOG.info("Iniciando geração de PDF a partir de conteúdo em streaming");
+
+        try (InputStream htmlStream = new ReaderInputStream(processedContent, StandardCharsets.UTF_8,
+                MAX_CONTENT_LENGTH, CONTENT_TOO_LARGE)) {
+            DocumentRequest.PdfOptions options = extractPdfOptions(request);
+
+            generatePdfDocument(options, output, (pdfDocument, properties) -> {
+                properties.setCharset(StandardCharsets.UTF_8.name());
+                HtmlConverter.convertToPdf(htmlStream, pdfDocument, properties);
+            });
+
+        } catch (Exception e) {
+            LOG.errorf(e, "Erro ao gerar PDF");
+            throw new PdfGenerationException("Erro na geração do PDF: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean supportsStreamingInput() {
+        return true;
+    }
+
     @Override
     public String getSupportedType() {
         return SUPPORTED_TYPE;
@@ -50,8 +93,8 @@ public class PdfGenerator implements DocumentGenerator {
     public void validateContent(String content) {
         DocumentGenerator.super.validateContent(content);
         
-        if (content.length() > 10_000_000) {
-            throw new IllegalArgumentException("Conteúdo muito grande para geração de PDF (limite: 10MB)");
+        if (content.length() > MAX_CONTENT_LENGTH) {
+            throw new IllegalArgumentException(CONTENT_TOO_LARGE);
         }
     }
 
@@ -94,29 +137,28 @@ public class PdfGenerator implements DocumentGenerator {
     }
 
     /**
-     * Gera o documento PDF propriamente dito
+     * Gera o documento PDF propriamente dito, escrevendo diretamente no stream de saída.
+     * O stream não é fechado: pertence a quem chama.
      */
-    private byte[] generatePdfDocument(String htmlContent, DocumentRequest.PdfOptions options) {
+    private void generatePdfDocument(DocumentRequest.PdfOptions options, OutputStream output, HtmlConversion conversion) {
         LOG.debugf("Gerando PDF com opções: %s", options);
         
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+        try {
+            CountingOutputStream countingOutput = new CountingOutputStream(output);
 
             ConverterProperties converterProperties = createConverterProperties(options);
 
-            PdfWriter writer = new PdfWriter(outputStream);
+            PdfWriter writer = new PdfWriter(countingOutput);
+            writer.setCloseStream(false);
             PdfDocument pdfDocument = new PdfDocument(writer);
 
             configureDocumentMetadata(pdfDocument, options);
 
             configurePageSettings(pdfDocument, options);
 
-            HtmlConverter.convertToPdf(htmlContent, pdfDocument, converterProperties);
-            
-            byte[] result = outputStream.toByteArray();
+            conversion.convert(pdfDocument, converterProperties);
             
-            LOG.infof("PDF gerado com sucesso - tamanho: %d bytes", result.length);
-            
-            return result;
+            LOG.infof("PDF gerado com sucesso - tamanho: %d bytes", countingOutput.getCount());
             
         } catch (Exception e) {
             LOG.errorf(e, "Erro durante a geração do PDF");
@@ -128,10 +170,8 @@ public class PdfGenerator implements DocumentGenerator {
      * Cria propriedades do conversor HTML para PDF
      */
     private ConverterProperties createConverterProperties(DocumentRequest.PdfOptions options) {
-        ConverterProperties properties = new ConverterProperties();
-        
-        // Configurações adicionais podem ser adicionadas aqui
-        // Por exemplo: fontes customizadas, CSS externo, etc.
+        // Cópia das propriedades partilhadas: o FontProvider já carregado é reutilizado
+        ConverterProperties properties = converterProperties.newProperties();
         
         LOG.debugf("Propriedades do conversor configuradas");
         return properties;
@@ -200,4 +240,12 @@ public class PdfGenerator implements DocumentGenerator {
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Conversão HTML para PDF sobre um documento já configurado (origem String ou stream)
+     */
+    @FunctionalInterface
+    private interface HtmlConversion {
+        void convert(PdfDocument pdfDocument, ConverterProperties properties) throws IOException;
+    }
+}
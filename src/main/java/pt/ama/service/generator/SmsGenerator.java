@@ -9,6 +9,7 @@ import pt.ama.dto.DocumentRequest;
 import pt.ama.exception.SmsGenerationException;
 import pt.ama.model.DocumentType;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -40,7 +41,8 @@ public class SmsGenerator implements DocumentGenerator {
     );
 
     @Override
-    public byte[] generate(String processedContent, DocumentRequest request) {
+    public void generate(CharSequence content, DocumentRequest request, OutputStream output) {
+        String processedContent = content != null ? content.toString() : null;
         LOG.infof("Iniciando geração de SMS - tamanho do conteúdo: %d caracteres", processedContent.length());
         
         try {
@@ -54,7 +56,7 @@ public class SmsGenerator implements DocumentGenerator {
             LOG.infof("SMS gerado com sucesso - destinatário: %s, tamanho: %d caracteres", 
                      smsData.getTo(), smsContent.length());
             
-            return smsContent.getBytes(StandardCharsets.UTF_8);
+            output.write(smsContent.getBytes(StandardCharsets.UTF_8));
             
         } catch (Exception e) {
             LOG.errorf(e, "Erro ao gerar SMS");
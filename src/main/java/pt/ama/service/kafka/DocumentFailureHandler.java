@@ -0,0 +1,134 @@
+package pt.ama.service.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import pt.ama.dto.DocumentGenerationMessage;
+import pt.ama.service.CallbackService;
+import pt.ama.service.kafka.FailureClassifier.FailureType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Encaminha mensagens cuja geração falhou: falhas transitórias vão para o tópico de retry
+ * correspondente à tentativa (com atraso exponencial), falhas permanentes ou tentativas
+ * esgotadas vão para a DLQ e disparam o callback de erro.
+ */
+@ApplicationScoped
+public class DocumentFailureHandler {
+
+    private static final Logger LOG = Logger.getLogger(DocumentFailureHandler.class);
+
+    @ConfigProperty(name = "kafka.topic.document-generation", defaultValue = "document-generation")
+    String documentGenerationTopic;
+
+    @ConfigProperty(name = "kafka.topic.document-generation-retry", defaultValue = "document-generation-retry")
+    String retryTopicPrefix;
+
+    @ConfigProperty(name = "kafka.topic.document-generation-dlq", defaultValue = "document-generation-dlq")
+    String deadLetterTopic;
+
+    @ConfigProperty(name = "kafka.retry.max-attempts", defaultValue = "4")
+    int maxAttempts;
+
+    @ConfigProperty(name = "kafka.retry.initial-backoff", defaultValue = "10S")
+    Duration initialBackoff;
+
+    @ConfigProperty(name = "kafka.retry.max-backoff", defaultValue = "10M")
+    Duration maxBackoff;
+
+    @ConfigProperty(name = "kafka.retry.multiplier", defaultValue = "3")
+    double multiplier;
+
+    @Inject
+    DocumentKafkaProducer kafkaProducer;
+
+    @Inject
+    CallbackService callbackService;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * Trata a falha de uma mensagem. Se a publicação no tópico de retry/DLQ falhar a exceção
+     * é propagada e o offset não é confirmado, para que a mensagem seja reentregue.
+     *
+     * @param message mensagem já desserializada, ou null se a falha ocorreu na desserialização
+     */
+    public void handle(ConsumerRecord<String, byte[]> record, DocumentGenerationMessage message, Exception error) {
+        FailureType failureType = FailureClassifier.classify(error);
+        int attempt = KafkaHeaders.getInt(record.headers(), KafkaHeaders.ATTEMPT, 1);
+
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        KafkaHeaders.set(headers, KafkaHeaders.ORIGINAL_TOPIC, originalTopic(record));
+        KafkaHeaders.set(headers, KafkaHeaders.FAILURE_TYPE, failureType);
+        KafkaHeaders.set(headers, KafkaHeaders.ERROR_CLASS, error.getClass().getName());
+        KafkaHeaders.set(headers, KafkaHeaders.ERROR_MESSAGE, error.getMessage());
+
+        if (failureType == FailureType.TRANSIENT && attempt < maxAttempts) {
+            Duration delay = backoff(attempt);
+            KafkaHeaders.set(headers, KafkaHeaders.ATTEMPT, attempt + 1);
+            KafkaHeaders.set(headers, KafkaHeaders.RETRY_AT, System.currentTimeMillis() + delay.toMillis());
+
+            kafkaProducer.publish(retryTopic(attempt), record.key(), record.value(), headers);
+            meterRegistry.counter("kafka.document.retries", "attempt", String.valueOf(attempt)).increment();
+
+            LOG.warnf("Transient failure for key %s (attempt %d/%d), retrying in %s: %s",
+                record.key(), attempt, maxAttempts, delay, error.getMessage());
+            return;
+        }
+
+        kafkaProducer.publish(deadLetterTopic, record.key(), record.value(), headers);
+        meterRegistry.counter("kafka.document.dead.letters", "failure", failureType.name()).increment();
+
+        LOG.errorf("Message with key %s sent to DLQ after %d attempt(s) - %s failure: %s",
+            record.key(), attempt, failureType, error.getMessage());
+
+        sendErrorCallback(message, error);
+    }
+
+    /**
+     * Tópicos de retry, um por tentativa, para que todas as mensagens de um tópico tenham o mesmo atraso
+     */
+    public List<String> retryTopics() {
+        return IntStream.range(1, Math.max(maxAttempts, 1))
+            .mapToObj(this::retryTopic)
+            .toList();
+    }
+
+    String retryTopic(int attempt) {
+        return retryTopicPrefix + "-" + attempt;
+    }
+
+    Duration backoff(int attempt) {
+        double delayMillis = initialBackoff.toMillis() * Math.pow(multiplier, attempt - 1);
+        return Duration.ofMillis((long) Math.min(delayMillis, maxBackoff.toMillis()));
+    }
+
+    private String originalTopic(ConsumerRecord<String, byte[]> record) {
+        String originalTopic = KafkaHeaders.get(record.headers(), KafkaHeaders.ORIGINAL_TOPIC);
+        return originalTopic != null ? originalTopic : documentGenerationTopic;
+    }
+
+    private void sendErrorCallback(DocumentGenerationMessage message, Exception error) {
+        if (message == null || message.getCallbackUrl() == null || message.getCallbackUrl().isEmpty()) {
+            return;
+        }
+        try {
+            callbackService.sendErrorCallback(
+                message.getCallbackUrl(),
+                message.getEventId(),
+                "Error generating document: " + error.getMessage()
+            );
+        } catch (Exception callbackError) {
+            LOG.error("Error sending error callback", callbackError);
+        }
+    }
+}
@@ -1,31 +1,63 @@
 package pt.ama.service.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import pt.ama.dto.DocumentGenerationMessage;
 import pt.ama.dto.DocumentRequest;
+import pt.ama.dto.GeneratedDocument;
 import pt.ama.mapper.DocumentRequestMapper;
 import pt.ama.service.DocumentService;
+import pt.ama.enums.CallbackDeliveryMode;
 import pt.ama.service.CallbackService;
+import pt.ama.service.storage.DocumentStore;
+import pt.ama.service.storage.DownloadLinkSigner;
+import pt.ama.service.storage.StoredDocument;
+import pt.ama.service.tracing.DocumentTracing;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @ApplicationScoped
 public class DocumentKafkaConsumer {
     
     private static final Logger LOG = Logger.getLogger(DocumentKafkaConsumer.class);
+    private static final long MIN_ERROR_BACKOFF_MILLIS = 500;
+    private static final long MAX_ERROR_BACKOFF_MILLIS = 30_000;
+    private static final long MIN_REWIND_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_REWIND_BACKOFF_MILLIS = 60_000;
+    private static final long REWIND_WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
     
     @ConfigProperty(name = "kafka.bootstrap.servers", defaultValue = "localhost:9092")
     String bootstrapServers;
@@ -34,7 +66,7 @@ public class DocumentKafkaConsumer {
     String documentGenerationTopic;
     
     @Inject
-    ObjectMapper objectMapper;
+    DocumentMessageCodec messageCodec;
     
     @Inject
     DocumentService documentService;
@@ -44,110 +76,531 @@ public class DocumentKafkaConsumer {
     
     @Inject
     CallbackService callbackService;
+
+    @Inject
+    DocumentFailureHandler failureHandler;
+
+    @Inject
+    DocumentStore documentStore;
+
+    @Inject
+    DownloadLinkSigner downloadLinkSigner;
+
+    @ConfigProperty(name = "callback.delivery.default-mode", defaultValue = "INLINE")
+    CallbackDeliveryMode defaultDeliveryMode;
     
-    private KafkaConsumer<String, String> consumer;
-    private ExecutorService executorService;
+    @ConfigProperty(name = "kafka.consumer.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "kafka.consumer.concurrency", defaultValue = "8")
+    int concurrency;
+
+    @ConfigProperty(name = "kafka.consumer.max-in-flight", defaultValue = "64")
+    int maxInFlight;
+
+    @ConfigProperty(name = "kafka.consumer.virtual-threads", defaultValue = "true")
+    boolean virtualThreads;
+
+    @ConfigProperty(name = "kafka.consumer.shutdown-timeout", defaultValue = "30S")
+    Duration shutdownTimeout;
+
+    @ConfigProperty(name = "kafka.consumer.commit.batch-size", defaultValue = "100")
+    int commitBatchSize;
+
+    @ConfigProperty(name = "kafka.consumer.commit.interval", defaultValue = "5S")
+    Duration commitInterval;
+
+    @ConfigProperty(name = "kafka.consumer.revoke-timeout", defaultValue = "10S")
+    Duration revokeTimeout;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    DocumentTracing documentTracing;
+
+    @Inject
+    KafkaClientFactory kafkaClientFactory;
+    
+    private final PartitionOffsetTracker offsetTracker = new PartitionOffsetTracker();
+    private final Map<TopicPartition, OffsetAndMetadata> uncommittedOffsets = new HashMap<>();
+    private final AtomicInteger completedSinceCommit = new AtomicInteger();
+    private final Map<TopicPartition, Long> pendingRewinds = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, RewindBackoff> rewindBackoffs = new HashMap<>(); // Apenas na thread de poll
+    private long lastCommitNanos = System.nanoTime();
+    private KafkaClientMetrics kafkaClientMetrics;
+    private Timer commitTimer;
+    private Counter commitFailures;
+    private volatile Consumer<String, byte[]> consumer;
+    private ExecutorService pollExecutor;
+    private ExecutorService workerExecutor;
+    private KeyOrderedExecutor keyOrderedExecutor;
+    private Semaphore renderPermits;
+    private boolean paused = false;
     private volatile boolean running = false;
     
-    @PostConstruct
-    public void init() {
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            LOG.info("Kafka consumer disabled");
+            return;
+        }
+
+        workerExecutor = virtualThreads
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(concurrency);
+        keyOrderedExecutor = new KeyOrderedExecutor(workerExecutor);
+        renderPermits = new Semaphore(concurrency);
+
+        commitTimer = Timer.builder("kafka.consumer.commit.latency")
+            .description("Latência dos commits de offsets do consumer de geração de documentos")
+            .tag("topic", documentGenerationTopic)
+            .register(meterRegistry);
+        commitFailures = Counter.builder("kafka.consumer.commit.failures")
+            .tag("topic", documentGenerationTopic)
+            .register(meterRegistry);
+        Gauge.builder("kafka.consumer.in.flight", offsetTracker, PartitionOffsetTracker::inFlight)
+            .description("Mensagens em processamento ainda sem offset confirmado")
+            .tag("topic", documentGenerationTopic)
+            .register(meterRegistry);
+
+        pollExecutor = Executors.newSingleThreadExecutor();
+        running = true;
+        
+        pollExecutor.submit(this::consumeMessages);
+        
+        LOG.infof("Kafka consumer initialized and started - concurrency: %d, max in-flight: %d, virtual threads: %s",
+            concurrency, maxInFlight, virtualThreads);
+    }
+
+    private Consumer<String, byte[]> createConsumer() {
         Properties props = new Properties();
         props.put("bootstrap.servers", bootstrapServers);
         props.put("group.id", "sistemplate-document-consumer");
         props.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
-        props.put("value.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put("value.deserializer", "org.apache.kafka.common.serialization.ByteArrayDeserializer");
         props.put("auto.offset.reset", "earliest");
-        props.put("enable.auto.commit", "true");
-        
-        consumer = new KafkaConsumer<>(props);
-        consumer.subscribe(Collections.singletonList(documentGenerationTopic));
+        props.put("enable.auto.commit", "false");
+        props.put("max.poll.records", maxInFlight);
         
-        executorService = Executors.newSingleThreadExecutor();
-        running = true;
-        
-        executorService.submit(this::consumeMessages);
-        
-        LOG.info("Kafka consumer initialized and started");
+        return kafkaClientFactory.createConsumer(props);
     }
     
+    /**
+     * Loop de poll: todas as chamadas ao KafkaConsumer (que não é thread-safe) são feitas nesta thread.
+     * Os registos são processados no pool de trabalho e os offsets só avançam quando concluídos.
+     */
     private void consumeMessages() {
-        while (running) {
-            try {
-                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(1000));
-                
-                for (ConsumerRecord<String, String> record : records) {
-                    processDocumentGeneration(record);
+        consumer = createConsumer();
+        consumer.subscribe(Collections.singletonList(documentGenerationTopic), new RebalanceListener());
+        long errorBackoff = MIN_ERROR_BACKOFF_MILLIS;
+
+        // Expõe as métricas nativas do cliente, incluindo records-lag e records-lag-max por partição
+        kafkaClientMetrics = new KafkaClientMetrics(consumer);
+        kafkaClientMetrics.bindTo(meterRegistry);
+
+        try {
+            while (running) {
+                try {
+                    ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(1000));
+                    
+                    for (ConsumerRecord<String, byte[]> record : records) {
+                        dispatch(record);
+                    }
+
+                    rewindFailedPartitions();
+                    applyBackpressure();
+                    commitCompletedOffsets();
+                    errorBackoff = MIN_ERROR_BACKOFF_MILLIS;
+                    
+                } catch (WakeupException e) {
+                    LOG.debug("Kafka consumer woken up for shutdown");
+                } catch (Exception e) {
+                    LOG.errorf(e, "Error consuming messages from Kafka, backing off %d ms", errorBackoff);
+                    try {
+                        Thread.sleep(errorBackoff);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    errorBackoff = Math.min(errorBackoff * 2, MAX_ERROR_BACKOFF_MILLIS);
                 }
-                
+            }
+        } finally {
+            drainWorkers();
+            closeConsumer();
+        }
+    }
+
+    private void dispatch(ConsumerRecord<String, byte[]> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        int generation = offsetTracker.track(partition, record.offset());
+
+        keyOrderedExecutor.submit(record.key(), () -> {
+            try {
+                renderPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                requestRewind(partition, record.offset());
+                return;
+            }
+            try {
+                // O callback fica registado no outbox antes de o offset avançar; o envio é assíncrono
+                processDocumentGeneration(record);
+                offsetTracker.complete(partition, record.offset(), generation);
+                completedSinceCommit.incrementAndGet();
             } catch (Exception e) {
-                LOG.error("Error consuming messages from Kafka", e);
+                // Falha ao encaminhar para retry/DLQ: o offset não é concluído e a partição volta a este offset
+                LOG.errorf(e, "Could not route failed message %s-%d@%d", record.topic(), record.partition(), record.offset());
+                requestRewind(partition, record.offset());
+            } finally {
+                renderPermits.release();
+            }
+        });
+    }
+
+    /**
+     * Pede (a partir de uma thread de trabalho) que a partição volte ao offset indicado;
+     * o seek é feito pela thread de poll em rewindFailedPartitions
+     */
+    private void requestRewind(TopicPartition partition, long offset) {
+        pendingRewinds.merge(partition, offset, Math::min);
+    }
+
+    /**
+     * Reposiciona as partições com mensagens que não puderam ser concluídas no offset mais baixo
+     * em falha. Os registos seguintes já obtidos deixam de contar para o commit e também são
+     * reentregues (entrega at-least-once). A partição fica suspensa durante um backoff exponencial
+     * (limitado a MAX_REWIND_BACKOFF_MILLIS), para que uma falha persistente no encaminhamento
+     * (por exemplo, tópico de retry indisponível) não volte a gerar o mesmo lote em ciclo.
+     */
+    private void rewindFailedPartitions() {
+        long now = System.nanoTime();
+        for (TopicPartition partition : pendingRewinds.keySet()) {
+            Long offset = pendingRewinds.remove(partition);
+            if (offset == null || !consumer.assignment().contains(partition)) {
+                continue;
+            }
+            offsetTracker.rewind(partition, offset);
+            consumer.seek(partition, offset);
+            consumer.pause(List.of(partition));
+
+            RewindBackoff backoff = rewindBackoffs.computeIfAbsent(partition, p -> new RewindBackoff(now));
+            long delay = backoff.next(now);
+            if (now - backoff.lastWarnNanos >= REWIND_WARN_INTERVAL_NANOS) {
+                LOG.warnf("Rewinding %s to offset %d, resuming in %d ms (consecutive rewinds: %d, %d not logged)",
+                    partition, offset, delay, backoff.failures, backoff.suppressedWarnings);
+                backoff.lastWarnNanos = now;
+                backoff.suppressedWarnings = 0;
+            } else {
+                backoff.suppressedWarnings++;
+                LOG.debugf("Rewinding %s to offset %d, resuming in %d ms", partition, offset, delay);
+            }
+        }
+
+        for (Map.Entry<TopicPartition, RewindBackoff> entry : rewindBackoffs.entrySet()) {
+            RewindBackoff backoff = entry.getValue();
+            if (backoff.waiting && now - backoff.resumeAtNanos >= 0) {
+                backoff.waiting = false;
+                // Com o consumer suspenso por backpressure, a partição é retomada em applyBackpressure
+                if (!paused) {
+                    consumer.resume(List.of(entry.getKey()));
+                }
+            }
+        }
+    }
+
+    private boolean inRewindBackoff(TopicPartition partition) {
+        RewindBackoff backoff = rewindBackoffs.get(partition);
+        return backoff != null && backoff.waiting;
+    }
+
+    /**
+     * Suspende as partições atribuídas quando há demasiado trabalho em curso e retoma-as
+     * quando o volume desce para metade do limite
+     */
+    private void applyBackpressure() {
+        int inFlight = offsetTracker.inFlight();
+
+        if (!paused && inFlight >= maxInFlight) {
+            consumer.pause(consumer.assignment());
+            paused = true;
+            LOG.debugf("Kafka consumer paused - in-flight: %d", inFlight);
+        } else if (paused && inFlight <= maxInFlight / 2) {
+            consumer.resume(consumer.paused().stream().filter(p -> !inRewindBackoff(p)).toList());
+            paused = false;
+            LOG.debugf("Kafka consumer resumed - in-flight: %d", inFlight);
+        }
+    }
+
+    /**
+     * Commit em lote: só quando há registos concluídos suficientes ou o intervalo expirou
+     */
+    private void commitCompletedOffsets() {
+        boolean batchFull = completedSinceCommit.get() >= commitBatchSize;
+        boolean intervalElapsed = System.nanoTime() - lastCommitNanos >= commitInterval.toNanos();
+        if (!batchFull && !intervalElapsed) {
+            return;
+        }
+
+        uncommittedOffsets.putAll(offsetTracker.committableOffsets());
+        completedSinceCommit.set(0);
+        lastCommitNanos = System.nanoTime();
+
+        if (uncommittedOffsets.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(uncommittedOffsets);
+        long start = System.nanoTime();
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (exception != null) {
+                // Os offsets ficam pendentes e seguem no próximo commit
+                commitFailures.increment();
+                LOG.warn("Error committing offsets " + committed, exception);
+                return;
+            }
+            committed.forEach((partition, offset) ->
+                uncommittedOffsets.computeIfPresent(partition, (p, pending) -> pending.offset() <= offset.offset() ? null : pending));
+        });
+    }
+
+    /**
+     * Commit síncrono dos offsets concluídos das partições indicadas (revogação e shutdown)
+     */
+    private void commitSync(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata pending = uncommittedOffsets.remove(partition);
+            if (pending != null) {
+                offsets.put(partition, pending);
+            }
+        }
+        offsets.putAll(offsetTracker.committableOffsets(partitions));
+        if (offsets.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            commitSyncAfterWakeup(consumer, offsets);
+        } catch (Exception e) {
+            commitFailures.increment();
+            LOG.warn("Error committing offsets " + offsets, e);
+        } finally {
+            commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Commit síncrono que tolera um wakeup pendente: se o shutdown acordou o consumer depois do último
+     * poll, o WakeupException é lançado por esta chamada; o commit é repetido uma vez, já sem wakeup
+     */
+    static void commitSyncAfterWakeup(Consumer<?, ?> consumer, Map<TopicPartition, OffsetAndMetadata> offsets) {
+        try {
+            consumer.commitSync(offsets);
+        } catch (WakeupException e) {
+            LOG.debug("Pending wakeup interrupted offset commit, retrying");
+            consumer.commitSync(offsets);
+        }
+    }
+
+    private void drainWorkers() {
+        if (workerExecutor == null) {
+            return;
+        }
+        workerExecutor.shutdown();
+        try {
+            if (!workerExecutor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                LOG.warnf("Kafka workers still running after %s, interrupting", shutdownTimeout);
+                workerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeConsumer() {
+        try {
+            commitSync(consumer.assignment());
+        } finally {
+            if (kafkaClientMetrics != null) {
+                kafkaClientMetrics.close();
+            }
+            consumer.close();
+        }
+    }
+
+    /**
+     * Backoff de uma partição reposicionada: duplica a cada reposicionamento consecutivo e recomeça
+     * quando a partição corre durante MAX_REWIND_BACKOFF_MILLIS sem novo reposicionamento
+     */
+    private static final class RewindBackoff {
+
+        private int failures;
+        private long resumeAtNanos;
+        private boolean waiting;
+        private long lastWarnNanos;
+        private int suppressedWarnings;
+
+        RewindBackoff(long now) {
+            this.resumeAtNanos = now;
+            this.lastWarnNanos = now - REWIND_WARN_INTERVAL_NANOS;
+        }
+
+        long next(long now) {
+            if (now - resumeAtNanos > TimeUnit.MILLISECONDS.toNanos(MAX_REWIND_BACKOFF_MILLIS)) {
+                failures = 0;
+            }
+            failures++;
+            long delay = Math.min(MIN_REWIND_BACKOFF_MILLIS << Math.min(failures - 1, 16), MAX_REWIND_BACKOFF_MILLIS);
+            resumeAtNanos = now + TimeUnit.MILLISECONDS.toNanos(delay);
+            waiting = true;
+            return delay;
+        }
+    }
+
+    private class RebalanceListener implements ConsumerRebalanceListener {
+
+        /**
+         * Aguarda (até revoke-timeout) que as mensagens em curso das partições revogadas terminem
+         * e confirma os seus offsets antes de as entregar a outro consumer
+         */
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            long deadline = System.nanoTime() + revokeTimeout.toNanos();
+            while (offsetTracker.inFlight(partitions) > 0 && System.nanoTime() < deadline) {
                 try {
-                    Thread.sleep(5000);
-                } catch (InterruptedException ie) {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     break;
                 }
             }
+
+            commitSync(partitions);
+            offsetTracker.remove(partitions);
+            partitions.forEach(pendingRewinds::remove);
+            partitions.forEach(rewindBackoffs::remove);
+            LOG.infof("Partitions revoked: %s", partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (paused) {
+                consumer.pause(partitions);
+            }
         }
     }
     
-    public void processDocumentGeneration(ConsumerRecord<String, String> record) {
+    public void processDocumentGeneration(ConsumerRecord<String, byte[]> record) {
+        // Continua o trace iniciado no pedido REST; o callback é registado com este contexto
+        Span span = documentTracing.spanBuilder(record.topic() + " process")
+            .setParent(documentTracing.extract(record.headers(), KafkaHeaders.TRACE_GETTER))
+            .setSpanKind(SpanKind.CONSUMER)
+            .setAttribute("messaging.system", "kafka")
+            .setAttribute("messaging.destination.name", record.topic())
+            .setAttribute("messaging.kafka.destination.partition", record.partition())
+            .setAttribute("messaging.kafka.message.offset", record.offset())
+            .setAttribute("messaging.message.id", record.key())
+            .startSpan();
+
+        try (Scope scope = span.makeCurrent()) {
+            process(record, span);
+        } finally {
+            span.end();
+        }
+    }
+
+    private void process(ConsumerRecord<String, byte[]> record, Span span) {
+        DocumentGenerationMessage message = null;
         try {
             LOG.info("Processing document generation message with key: " + record.key());
             
-            DocumentGenerationMessage message = objectMapper.readValue(
-                record.value(), 
-                DocumentGenerationMessage.class
-            );
+            message = messageCodec.decode(record.value(), record.headers());
+            message.setDequeuedAt(System.currentTimeMillis());
+            recordQueueDwell(record, message, span);
 
             DocumentRequest request = documentRequestMapper.toDocumentRequest(message);
 
-            byte[] documentBytes = documentService.generateDocument(request);
+            GeneratedDocument document = documentService.generate(request);
 
             // Enviar callback com o documento gerado
             if (message.getCallbackUrl() != null && !message.getCallbackUrl().isEmpty()) {
-                callbackService.sendDocumentCallback(
-                    message.getCallbackUrl(),
-                    message.getEventId(),
-                    documentBytes,
-                    documentService.buildFilename(request),
-                    documentService.getContentTypeByTemplate(request.getTemplateName())
-                );
+                sendCallback(message, document);
             }
             
             LOG.info("Document generation completed for event: " + message.getEventId());
             
         } catch (Exception e) {
             LOG.error("Error processing document generation message", e);
-
-            // Em caso de erro, tentar enviar callback de erro
-            try {
-                DocumentGenerationMessage message = objectMapper.readValue(
-                    record.value(), 
-                    DocumentGenerationMessage.class
-                );
-                
-                if (message.getCallbackUrl() != null && !message.getCallbackUrl().isEmpty()) {
-                    callbackService.sendErrorCallback(
-                        message.getCallbackUrl(),
-                        message.getEventId(),
-                        "Error generating document: " + e.getMessage()
-                    );
-                }
-            } catch (Exception callbackError) {
-                LOG.error("Error sending error callback", callbackError);
-            }
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            failureHandler.handle(record, message, e);
         }
     }
+
+    /**
+     * Tempo entre a publicação e a leitura da mensagem. Mensagens sem enqueuedAt (publicadas antes
+     * deste campo existir) usam o timestamp do registo Kafka. Em retries inclui o tempo de espera no tópico de retry.
+     */
+    private void recordQueueDwell(ConsumerRecord<String, byte[]> record, DocumentGenerationMessage message, Span span) {
+        long enqueuedAt = message.getEnqueuedAt() != null ? message.getEnqueuedAt() : record.timestamp();
+        long dwellMillis = Math.max(message.getDequeuedAt() - enqueuedAt, 0);
+
+        span.setAttribute("messaging.document.queue_dwell_ms", dwellMillis);
+        span.setAttribute("messaging.document.attempt",
+            KafkaHeaders.getInt(record.headers(), KafkaHeaders.ATTEMPT, 1));
+        meterRegistry.timer("kafka.consumer.queue.dwell", "topic", record.topic())
+            .record(dwellMillis, TimeUnit.MILLISECONDS);
+    }
     
+    private void sendCallback(DocumentGenerationMessage message, GeneratedDocument document) {
+        CallbackDeliveryMode mode = message.getCallbackDelivery() != null
+            ? message.getCallbackDelivery()
+            : defaultDeliveryMode;
+
+        if (mode == CallbackDeliveryMode.REFERENCE) {
+            StoredDocument stored = documentStore.store(
+                document.getContent(), document.getFilename(), document.getContentType());
+            callbackService.sendDocumentLinkCallback(
+                message.getCallbackUrl(),
+                message.getEventId(),
+                stored.filename(),
+                stored.contentType(),
+                stored.size(),
+                downloadLinkSigner.signedUrl(stored),
+                stored.expiresAt()
+            );
+            return;
+        }
+
+        callbackService.sendDocumentCallback(
+            message.getCallbackUrl(),
+            message.getEventId(),
+            document.getContent(),
+            document.getFilename(),
+            document.getContentType()
+        );
+    }
+
     @PreDestroy
     public void shutdown() {
+        if (!running) {
+            return;
+        }
         running = false;
         if (consumer != null) {
-            consumer.close();
+            consumer.wakeup();
         }
-        if (executorService != null) {
-            executorService.shutdown();
+        if (pollExecutor != null) {
+            pollExecutor.shutdown();
+            try {
+                pollExecutor.awaitTermination(shutdownTimeout.toMillis() + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
         LOG.info("Kafka consumer shutdown completed");
     }
@@ -1,17 +1,33 @@
 package pt.ama.service.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import pt.ama.dto.DocumentGenerationMessage;
+import pt.ama.service.tracing.DocumentTracing;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @ApplicationScoped
 public class DocumentKafkaProducer {
@@ -24,63 +40,220 @@ public class DocumentKafkaProducer {
     @ConfigProperty(name = "kafka.topic.document-generation", defaultValue = "document-generation")
     String documentGenerationTopic;
     
+    @ConfigProperty(name = "kafka.producer.send-timeout", defaultValue = "30S")
+    Duration sendTimeout;
+    
+    @ConfigProperty(name = "kafka.producer.batch-size", defaultValue = "262144")
+    int batchSize;
+    
+    @ConfigProperty(name = "kafka.producer.linger-ms", defaultValue = "20")
+    int lingerMs;
+    
+    @ConfigProperty(name = "kafka.producer.compression-type", defaultValue = "lz4")
+    String compressionType;
+    
+    @ConfigProperty(name = "kafka.producer.buffer-memory", defaultValue = "67108864")
+    long bufferMemory;
+    
     @Inject
-    ObjectMapper objectMapper;
+    DocumentMessageCodec messageCodec;
     
-    private KafkaProducer<String, String> producer;
+    @Inject
+    DocumentTracing documentTracing;
+    
+    @Inject
+    KafkaClientFactory kafkaClientFactory;
     
-    public void init() {
+    private Producer<String, byte[]> producer;
+    
+    public synchronized void init() {
         if (producer == null) {
             Properties props = new Properties();
             props.put("bootstrap.servers", bootstrapServers);
             props.put("key.serializer", "org.apache.kafka.common.serialization.StringSerializer");
-            props.put("value.serializer", "org.apache.kafka.common.serialization.StringSerializer");
+            props.put("value.serializer", "org.apache.kafka.common.serialization.ByteArraySerializer");
             props.put("acks", "all");
+            props.put("enable.idempotence", true);
             props.put("retries", 3);
-            props.put("batch.size", 16384);
-            props.put("linger.ms", 1);
-            props.put("buffer.memory", 33554432);
+            props.put("batch.size", batchSize);
+            props.put("linger.ms", lingerMs);
+            props.put("compression.type", compressionType);
+            props.put("buffer.memory", bufferMemory);
             
-            producer = new KafkaProducer<>(props);
+            producer = kafkaClientFactory.createProducer(props);
         }
     }
     
     public String publishDocumentGenerationRequest(DocumentGenerationMessage message) {
-        try {
+        String eventId = UUID.randomUUID().toString();
+        // O span termina quando o broker confirma o envio; o contexto segue nos cabeçalhos da mensagem
+        Span span = startPublishSpan()
+            .setAttribute("messaging.message.id", eventId);
+        
+        try (Scope scope = span.makeCurrent()) {
             init();
             
-            String eventId = UUID.randomUUID().toString();
             message.setEventId(eventId);
+            message.setEnqueuedAt(System.currentTimeMillis());
             
-            String messageJson = objectMapper.writeValueAsString(message);
-            
-            ProducerRecord<String, String> record = new ProducerRecord<>(
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(
                 documentGenerationTopic, 
+                null,
                 eventId, 
-                messageJson
+                messageCodec.encode(message),
+                messageHeaders()
             );
             
             producer.send(record, (metadata, exception) -> {
                 if (exception != null) {
                     LOG.error("Error sending message to Kafka", exception);
+                    endSpan(span, exception);
                 } else {
                     LOG.info("Message sent successfully to topic: " + metadata.topic() + 
                             ", partition: " + metadata.partition() + 
                             ", offset: " + metadata.offset());
+                    endSpan(span, null);
                 }
             });
             
             return eventId;
             
-        } catch (JsonProcessingException e) {
-            LOG.error("Error serializing message to JSON", e);
+        } catch (IOException e) {
+            LOG.error("Error serializing message as " + messageCodec.encoding(), e);
+            endSpan(span, e);
             throw new RuntimeException("Failed to publish document generation request", e);
+        } catch (RuntimeException e) {
+            endSpan(span, e);
+            throw e;
         }
     }
     
-    public void close() {
+    /**
+     * Publica várias mensagens de uma vez: serializa-as diretamente para bytes na codificação configurada,
+     * envia-as todas (o producer agrupa e comprime os envios) e só depois aguarda as confirmações do broker.
+     * As mensagens cujo envio falhou são devolvidas em failedEventIds.
+     */
+    public BulkPublishResult publishDocumentGenerationRequests(List<DocumentGenerationMessage> messages) {
+        init();
+        long start = System.currentTimeMillis();
+        
+        // Um único span para o lote: o processamento de cada mensagem fica como seu descendente
+        Span span = startPublishSpan()
+            .setAttribute("messaging.batch.message_count", messages.size());
+        
+        List<String> eventIds = new ArrayList<>(messages.size());
+        List<Future<RecordMetadata>> sends = new ArrayList<>(messages.size());
+        List<String> failedEventIds = new ArrayList<>();
+        
+        try (Scope scope = span.makeCurrent()) {
+            for (DocumentGenerationMessage message : messages) {
+                String eventId = UUID.randomUUID().toString();
+                message.setEventId(eventId);
+                message.setEnqueuedAt(System.currentTimeMillis());
+                eventIds.add(eventId);
+                
+                try {
+                    byte[] value = messageCodec.encode(message);
+                    sends.add(producer.send(new ProducerRecord<>(documentGenerationTopic, null, eventId, value, messageHeaders())));
+                } catch (IOException | RuntimeException e) {
+                    LOG.errorf("Error publishing message %s: %s", eventId, e.getMessage());
+                    sends.add(null);
+                }
+            }
+            
+            long deadline = System.nanoTime() + sendTimeout.toNanos();
+            for (int i = 0; i < sends.size(); i++) {
+                if (!awaitSend(sends.get(i), deadline)) {
+                    failedEventIds.add(eventIds.get(i));
+                }
+            }
+        }
+        
+        span.setAttribute("messaging.batch.failed_count", failedEventIds.size());
+        if (!failedEventIds.isEmpty()) {
+            span.setStatus(StatusCode.ERROR, failedEventIds.size() + " message(s) not published");
+        }
+        span.end();
+        
+        LOG.infof("Bulk publish to topic %s: %d messages, %d failed, %d ms",
+            documentGenerationTopic, messages.size(), failedEventIds.size(), System.currentTimeMillis() - start);
+        
+        return new BulkPublishResult(eventIds, failedEventIds);
+    }
+    
+    /**
+     * Cabeçalhos de uma nova mensagem: codificação e contexto de trace atual
+     */
+    private Headers messageHeaders() {
+        Headers headers = new RecordHeaders();
+        messageCodec.writeHeaders(headers);
+        documentTracing.inject(Context.current(), headers, KafkaHeaders.TRACE_SETTER);
+        return headers;
+    }
+    
+    private Span startPublishSpan() {
+        return documentTracing.spanBuilder(documentGenerationTopic + " publish")
+            .setSpanKind(SpanKind.PRODUCER)
+            .setAttribute("messaging.system", "kafka")
+            .setAttribute("messaging.destination.name", documentGenerationTopic)
+            .startSpan();
+    }
+    
+    private static void endSpan(Span span, Exception error) {
+        if (error != null) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR, error.getMessage());
+        }
+        span.end();
+    }
+    
+    private boolean awaitSend(Future<RecordMetadata> send, long deadline) {
+        if (send == null) {
+            return false;
+        }
+        try {
+            send.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.debugf("Bulk send failed: %s", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Publica uma mensagem já serializada num tópico, aguardando a confirmação do broker.
+     * Usado no encaminhamento para os tópicos de retry e DLQ; os bytes e o cabeçalho content-type
+     * seguem inalterados, pelo que a codificação original é preservada.
+     */
+    public void publish(String topic, String key, byte[] value, Headers headers) {
+        init();
+
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, null, key, value, headers);
+        try {
+            producer.send(record).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            LOG.debugf("Message with key %s published to topic %s", key, topic);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing to topic " + topic, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish message to topic " + topic, e);
+        }
+    }
+    
+    public record BulkPublishResult(List<String> eventIds, List<String> failedEventIds) {
+    }
+    
+    /**
+     * Fecha o producer no encerramento da aplicação, enviando primeiro as mensagens ainda em buffer
+     * (até ao send-timeout), para que os envios assíncronos pendentes não se percam.
+     */
+    @PreDestroy
+    public synchronized void close() {
         if (producer != null) {
-            producer.close();
+            producer.close(sendTimeout);
         }
     }
 }
\ No newline at end of file
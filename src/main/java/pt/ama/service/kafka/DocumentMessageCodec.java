@@ -0,0 +1,91 @@
+package pt.ama.service.kafka;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.common.header.Headers;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import pt.ama.dto.DocumentGenerationMessage;
+import pt.ama.enums.MessageEncoding;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Serializa e desserializa as mensagens de geração de documentos. O producer usa a codificação
+ * configurada e indica-a no cabeçalho content-type; na leitura a codificação é escolhida pelo
+ * cabeçalho, assumindo JSON quando está ausente (mensagens publicadas antes deste cabeçalho).
+ */
+@ApplicationScoped
+public class DocumentMessageCodec {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "kafka.producer.message-encoding", defaultValue = "JSON")
+    MessageEncoding encoding;
+
+    private final Map<MessageEncoding, ObjectReader> readers = new EnumMap<>(MessageEncoding.class);
+    private final Map<MessageEncoding, ObjectWriter> writers = new EnumMap<>(MessageEncoding.class);
+
+    @PostConstruct
+    void init() {
+        for (MessageEncoding messageEncoding : MessageEncoding.values()) {
+            // Copia a configuração do ObjectMapper da aplicação (módulos, features) para cada formato
+            ObjectMapper mapper = objectMapper.copyWith(factoryFor(messageEncoding));
+            readers.put(messageEncoding, mapper.readerFor(DocumentGenerationMessage.class));
+            writers.put(messageEncoding, mapper.writerFor(DocumentGenerationMessage.class));
+        }
+    }
+
+    /**
+     * Codificação usada na publicação
+     */
+    public MessageEncoding encoding() {
+        return encoding;
+    }
+
+    public byte[] encode(DocumentGenerationMessage message) throws IOException {
+        return writers.get(encoding).writeValueAsBytes(message);
+    }
+
+    /**
+     * Escreve o cabeçalho content-type da codificação usada em encode
+     */
+    public void writeHeaders(Headers headers) {
+        KafkaHeaders.set(headers, KafkaHeaders.CONTENT_TYPE, encoding.getContentType());
+    }
+
+    public DocumentGenerationMessage decode(byte[] value, Headers headers) throws IOException {
+        return readers.get(encodingOf(headers)).readValue(value);
+    }
+
+    static MessageEncoding encodingOf(Headers headers) throws JsonParseException {
+        String contentType = KafkaHeaders.get(headers, KafkaHeaders.CONTENT_TYPE);
+        if (contentType == null) {
+            return MessageEncoding.JSON;
+        }
+        MessageEncoding messageEncoding = MessageEncoding.fromContentType(contentType);
+        if (messageEncoding == null) {
+            // Erro de formato: classificado como permanente, a mensagem segue para a DLQ
+            throw new JsonParseException(null, "Unsupported message content-type: " + contentType);
+        }
+        return messageEncoding;
+    }
+
+    private static JsonFactory factoryFor(MessageEncoding messageEncoding) {
+        return switch (messageEncoding) {
+            case JSON -> new JsonFactory();
+            case SMILE -> new SmileFactory();
+            case CBOR -> new CBORFactory();
+        };
+    }
+}
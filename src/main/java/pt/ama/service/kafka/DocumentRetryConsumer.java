@@ -0,0 +1,234 @@
+package pt.ama.service.kafka;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reentrega as mensagens dos tópicos de retry no tópico original quando o seu atraso expira.
+ * Uma partição cuja primeira mensagem ainda não venceu é suspensa (pause) até essa data,
+ * sem bloquear as restantes partições nem o consumer principal.
+ */
+@ApplicationScoped
+public class DocumentRetryConsumer {
+
+    private static final Logger LOG = Logger.getLogger(DocumentRetryConsumer.class);
+    private static final long MAX_POLL_MILLIS = 1000;
+    private static final long MAX_ERROR_BACKOFF_MILLIS = 30_000;
+
+    @ConfigProperty(name = "kafka.bootstrap.servers", defaultValue = "localhost:9092")
+    String bootstrapServers;
+
+    @ConfigProperty(name = "kafka.topic.document-generation", defaultValue = "document-generation")
+    String documentGenerationTopic;
+
+    @ConfigProperty(name = "kafka.retry.consumer.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    DocumentKafkaProducer kafkaProducer;
+
+    @Inject
+    DocumentFailureHandler failureHandler;
+
+    @Inject
+    KafkaClientFactory kafkaClientFactory;
+
+    private final Map<TopicPartition, Long> resumeAt = new HashMap<>();
+    private volatile Consumer<String, byte[]> consumer;
+    private ExecutorService executorService;
+    private volatile boolean running = false;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            LOG.info("Kafka retry consumer disabled");
+            return;
+        }
+
+        executorService = Executors.newSingleThreadExecutor();
+        running = true;
+        executorService.submit(this::consumeRetries);
+
+        LOG.infof("Kafka retry consumer started for topics: %s", failureHandler.retryTopics());
+    }
+
+    private Consumer<String, byte[]> createConsumer() {
+        Properties props = new Properties();
+        props.put("bootstrap.servers", bootstrapServers);
+        props.put("group.id", "sistemplate-document-retry");
+        props.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put("value.deserializer", "org.apache.kafka.common.serialization.ByteArrayDeserializer");
+        props.put("auto.offset.reset", "earliest");
+        props.put("enable.auto.commit", "false");
+
+        return kafkaClientFactory.createConsumer(props);
+    }
+
+    private void consumeRetries() {
+        consumer = createConsumer();
+        consumer.subscribe(failureHandler.retryTopics(), new RebalanceListener());
+        long errorBackoff = MAX_POLL_MILLIS;
+
+        try {
+            while (running) {
+                try {
+                    resumeDuePartitions();
+
+                    ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(pollTimeout()));
+                    forwardDueRecords(records);
+                    errorBackoff = MAX_POLL_MILLIS;
+
+                } catch (WakeupException e) {
+                    LOG.debug("Kafka retry consumer woken up for shutdown");
+                } catch (Exception e) {
+                    LOG.errorf(e, "Error consuming retry messages, backing off %d ms", errorBackoff);
+                    try {
+                        Thread.sleep(errorBackoff);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    errorBackoff = Math.min(errorBackoff * 2, MAX_ERROR_BACKOFF_MILLIS);
+                }
+            }
+        } finally {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Reencaminha as mensagens de cada partição. Se uma publicação falhar, as partições ainda não
+     * tratadas deste poll voltam ao seu primeiro registo, para serem lidas de novo após o backoff.
+     */
+    private void forwardDueRecords(ConsumerRecords<String, byte[]> records) {
+        List<TopicPartition> partitions = new ArrayList<>(records.partitions());
+        for (int i = 0; i < partitions.size(); i++) {
+            try {
+                forwardDueRecords(partitions.get(i), records.records(partitions.get(i)));
+            } catch (RuntimeException e) {
+                for (TopicPartition pending : partitions.subList(i + 1, partitions.size())) {
+                    consumer.seek(pending, records.records(pending).get(0).offset());
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Reencaminha, por ordem, as mensagens já vencidas; ao encontrar a primeira ainda por vencer
+     * reposiciona a partição nesse offset e suspende-a até à data de reentrega.
+     * Se a publicação falhar, confirma as já reencaminhadas e reposiciona a partição na que falhou.
+     */
+    private void forwardDueRecords(TopicPartition partition, List<ConsumerRecord<String, byte[]>> records) {
+        long now = System.currentTimeMillis();
+        OffsetAndMetadata toCommit = null;
+
+        for (ConsumerRecord<String, byte[]> record : records) {
+            long retryAt = KafkaHeaders.getLong(record.headers(), KafkaHeaders.RETRY_AT, 0);
+            if (retryAt > now) {
+                consumer.seek(partition, record.offset());
+                consumer.pause(List.of(partition));
+                resumeAt.put(partition, retryAt);
+                break;
+            }
+
+            String originalTopic = KafkaHeaders.get(record.headers(), KafkaHeaders.ORIGINAL_TOPIC);
+            try {
+                kafkaProducer.publish(originalTopic != null ? originalTopic : documentGenerationTopic,
+                    record.key(), record.value(), record.headers());
+            } catch (RuntimeException e) {
+                consumer.seek(partition, record.offset());
+                commitForwarded(partition, toCommit);
+                throw e;
+            }
+            toCommit = new OffsetAndMetadata(record.offset() + 1);
+        }
+
+        commitForwarded(partition, toCommit);
+    }
+
+    private void commitForwarded(TopicPartition partition, OffsetAndMetadata offset) {
+        if (offset != null) {
+            consumer.commitSync(Map.of(partition, offset));
+        }
+    }
+
+    private void resumeDuePartitions() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<TopicPartition, Long>> iterator = resumeAt.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<TopicPartition, Long> entry = iterator.next();
+            if (entry.getValue() <= now) {
+                consumer.resume(List.of(entry.getKey()));
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Espera até à próxima partição a retomar, nunca mais do que MAX_POLL_MILLIS: poll demasiado
+     * espaçados excederiam max.poll.interval.ms e atrasariam o shutdown e os rebalanceamentos
+     */
+    private long pollTimeout() {
+        long now = System.currentTimeMillis();
+        long untilNextResume = resumeAt.values().stream()
+            .mapToLong(at -> Math.max(at - now, 0))
+            .min()
+            .orElse(MAX_POLL_MILLIS);
+        return Math.min(untilNextResume, MAX_POLL_MILLIS);
+    }
+
+    private class RebalanceListener implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            partitions.forEach(resumeAt::remove);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            // Novas partições começam ativas; o atraso é reavaliado no próximo poll
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (consumer != null) {
+            consumer.wakeup();
+        }
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOG.info("Kafka retry consumer shutdown completed");
+    }
+}
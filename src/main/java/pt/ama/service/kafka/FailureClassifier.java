@@ -0,0 +1,48 @@
+package pt.ama.service.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import pt.ama.exception.BusinessException;
+import pt.ama.exception.DataConversionException;
+import pt.ama.exception.RequiredFieldsValidationException;
+import pt.ama.exception.TemplateNotFoundException;
+import pt.ama.exception.TemplateProcessingException;
+import pt.ama.exception.UnsupportedDocumentTypeException;
+
+/**
+ * Classifica falhas de geração: erros de negócio/dados não se resolvem com nova tentativa,
+ * os restantes (infraestrutura, timeouts, erros inesperados) são considerados transitórios.
+ */
+final class FailureClassifier {
+
+    enum FailureType {
+        PERMANENT,
+        TRANSIENT
+    }
+
+    private FailureClassifier() {
+    }
+
+    static FailureType classify(Throwable error) {
+        Throwable current = error;
+        while (current != null) {
+            if (isPermanent(current)) {
+                return FailureType.PERMANENT;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+            current = current.getCause();
+        }
+        return FailureType.TRANSIENT;
+    }
+
+    private static boolean isPermanent(Throwable error) {
+        return error instanceof BusinessException
+            || error instanceof TemplateNotFoundException
+            || error instanceof RequiredFieldsValidationException
+            || error instanceof UnsupportedDocumentTypeException
+            || error instanceof TemplateProcessingException
+            || error instanceof DataConversionException
+            || error instanceof JsonProcessingException;
+    }
+}
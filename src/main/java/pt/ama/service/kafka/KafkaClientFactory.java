@@ -0,0 +1,25 @@
+package pt.ama.service.kafka;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+
+import java.util.Properties;
+
+/**
+ * Cria os clientes Kafka usados pelo producer e pelos consumers de geração de documentos.
+ * Pode ser substituído por uma alternativa CDI (ex: broker em memória no harness de carga).
+ */
+@ApplicationScoped
+public class KafkaClientFactory {
+
+    public Producer<String, byte[]> createProducer(Properties properties) {
+        return new KafkaProducer<>(properties);
+    }
+
+    public Consumer<String, byte[]> createConsumer(Properties properties) {
+        return new KafkaConsumer<>(properties);
+    }
+}
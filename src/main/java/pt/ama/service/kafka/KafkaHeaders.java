@@ -0,0 +1,80 @@
+package pt.ama.service.kafka;
+
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cabeçalhos usados nas mensagens de geração de documentos (codificação, retry, DLQ e contexto de trace)
+ */
+final class KafkaHeaders {
+
+    static final String CONTENT_TYPE = "content-type";
+    static final String ATTEMPT = "x-attempt";
+    static final String RETRY_AT = "x-retry-at";
+    static final String ORIGINAL_TOPIC = "x-original-topic";
+    static final String ERROR_CLASS = "x-error-class";
+    static final String ERROR_MESSAGE = "x-error-message";
+    static final String FAILURE_TYPE = "x-failure-type";
+
+    /**
+     * Acesso aos cabeçalhos para a propagação do contexto OpenTelemetry (traceparent/tracestate)
+     */
+    static final TextMapSetter<Headers> TRACE_SETTER = (headers, name, value) -> {
+        if (headers != null) {
+            set(headers, name, value);
+        }
+    };
+
+    static final TextMapGetter<Headers> TRACE_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(Headers headers) {
+            List<String> keys = new ArrayList<>();
+            headers.forEach(header -> keys.add(header.key()));
+            return keys;
+        }
+
+        @Override
+        public String get(Headers headers, String name) {
+            return headers != null ? KafkaHeaders.get(headers, name) : null;
+        }
+    };
+
+    private KafkaHeaders() {
+    }
+
+    static String get(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    static int getInt(Headers headers, String name, int defaultValue) {
+        String value = get(headers, name);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static long getLong(Headers headers, String name, long defaultValue) {
+        String value = get(headers, name);
+        try {
+            return value != null ? Long.parseLong(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static void set(Headers headers, String name, Object value) {
+        headers.remove(name);
+        if (value != null) {
+            headers.add(name, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
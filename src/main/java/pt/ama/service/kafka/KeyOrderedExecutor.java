@@ -0,0 +1,32 @@
+package pt.ama.service.kafka;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Executa tarefas em paralelo preservando a ordem de submissão entre tarefas com a mesma chave
+ */
+class KeyOrderedExecutor {
+
+    private final Executor executor;
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    KeyOrderedExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    void submit(String key, Runnable task) {
+        if (key == null) {
+            CompletableFuture.runAsync(task, executor);
+            return;
+        }
+
+        CompletableFuture<Void> next = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, executor)
+                : tail.exceptionally(e -> null).thenRunAsync(task, executor));
+
+        next.whenComplete((result, error) -> tails.remove(key, next));
+    }
+}
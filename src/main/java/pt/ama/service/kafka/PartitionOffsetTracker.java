@@ -0,0 +1,130 @@
+package pt.ama.service.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Regista os offsets em processamento por partição e calcula o offset seguro para commit:
+ * apenas o maior offset contíguo já concluído, para que nenhuma mensagem em curso seja perdida.
+ *
+ * track/committableOffsets/rewind/remove são chamados pela thread de poll; complete pelas threads de trabalho.
+ * Cada partição tem uma geração, incrementada em rewind: conclusões de registos obtidos antes do
+ * rewind são ignoradas, para não marcarem como concluída a nova entrega do mesmo offset.
+ */
+class PartitionOffsetTracker {
+
+    private final Map<TopicPartition, ConcurrentNavigableMap<Long, Boolean>> pending = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, AtomicInteger> generations = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * @return geração da partição, a indicar em complete
+     */
+    int track(TopicPartition partition, long offset) {
+        pending.computeIfAbsent(partition, p -> new ConcurrentSkipListMap<>()).put(offset, Boolean.FALSE);
+        inFlight.incrementAndGet();
+        return generation(partition).get();
+    }
+
+    void complete(TopicPartition partition, long offset, int generation) {
+        if (generation(partition).get() != generation) {
+            return;
+        }
+        ConcurrentNavigableMap<Long, Boolean> offsets = pending.get(partition);
+        if (offsets != null && offsets.replace(offset, Boolean.FALSE, Boolean.TRUE)) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Esquece os offsets a partir de fromOffset (inclusive), que vão ser reentregues após um seek.
+     * Os registos anteriores mantêm-se, pelo que o commit nunca ultrapassa fromOffset.
+     */
+    void rewind(TopicPartition partition, long fromOffset) {
+        generation(partition).incrementAndGet();
+        ConcurrentNavigableMap<Long, Boolean> offsets = pending.get(partition);
+        if (offsets == null) {
+            return;
+        }
+        for (Long offset : offsets.tailMap(fromOffset, true).keySet()) {
+            if (offsets.remove(offset, Boolean.FALSE)) {
+                inFlight.decrementAndGet();
+            } else {
+                offsets.remove(offset);
+            }
+        }
+    }
+
+    /**
+     * Devolve, por partição, o próximo offset a consumir após o último bloco contíguo concluído,
+     * descartando os offsets já confirmados
+     */
+    Map<TopicPartition, OffsetAndMetadata> committableOffsets() {
+        return committableOffsets(pending.keySet());
+    }
+
+    /**
+     * Igual a {@link #committableOffsets()}, restrito às partições indicadas
+     */
+    Map<TopicPartition, OffsetAndMetadata> committableOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> committable = new HashMap<>();
+
+        for (TopicPartition partition : partitions) {
+            ConcurrentNavigableMap<Long, Boolean> offsets = pending.get(partition);
+            if (offsets == null) {
+                continue;
+            }
+            long lastCompleted = -1;
+            Map.Entry<Long, Boolean> first;
+            while ((first = offsets.firstEntry()) != null && first.getValue()) {
+                lastCompleted = first.getKey();
+                offsets.remove(first.getKey());
+            }
+            if (lastCompleted >= 0) {
+                committable.put(partition, new OffsetAndMetadata(lastCompleted + 1));
+            }
+        }
+
+        return committable;
+    }
+
+    /**
+     * Deixa de acompanhar partições revogadas; os registos ainda em curso serão reentregues ao novo dono
+     */
+    void remove(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            ConcurrentNavigableMap<Long, Boolean> offsets = pending.remove(partition);
+            if (offsets != null) {
+                long running = offsets.values().stream().filter(done -> !done).count();
+                inFlight.addAndGet((int) -running);
+            }
+        }
+    }
+
+    private AtomicInteger generation(TopicPartition partition) {
+        return generations.computeIfAbsent(partition, p -> new AtomicInteger());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    int inFlight(Collection<TopicPartition> partitions) {
+        int running = 0;
+        for (TopicPartition partition : partitions) {
+            ConcurrentNavigableMap<Long, Boolean> offsets = pending.get(partition);
+            if (offsets != null) {
+                running += (int) offsets.values().stream().filter(done -> !done).count();
+            }
+        }
+        return running;
+    }
+}
@@ -0,0 +1,98 @@
+package pt.ama.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ArcContainer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import pt.ama.model.DocumentType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas da geração de documentos: latência de cada etapa (GenerationStage) por template e tipo
+ * de documento, bytes produzidos, erros por tipo de exceção e latência dos callbacks.
+ * Nos pedidos HTTP as durações são também registadas no StageTimings, para o header Server-Timing.
+ */
+@ApplicationScoped
+public class DocumentMetrics {
+
+    static final String STAGE_TIMER = "document.generation.stage";
+    static final String BYTES_COUNTER = "document.generation.bytes";
+    static final String ERRORS_COUNTER = "document.generation.errors";
+    static final String CALLBACK_TIMER = "document.callback.latency";
+    static final String UNKNOWN = "unknown";
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    StageTimings stageTimings;
+
+    @ConfigProperty(name = "document.metrics.histograms.enabled", defaultValue = "true")
+    boolean histogramsEnabled;
+
+    /**
+     * Regista a duração de uma etapa da geração
+     */
+    public void recordStage(GenerationStage stage, String templateName, DocumentType type, long nanos) {
+        Timer.builder(STAGE_TIMER)
+                .description("Duração de cada etapa da geração de documentos")
+                .tag("stage", stage.getMetricName())
+                .tag("template", tagValue(templateName))
+                .tag("type", type != null ? type.name() : UNKNOWN)
+                .publishPercentileHistogram(histogramsEnabled)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        // Fora de um pedido HTTP (consumer Kafka, threads de pipeline) não há Server-Timing
+        ArcContainer container = Arc.container();
+        if (container != null && container.requestContext().isActive()) {
+            stageTimings.add(stage, nanos);
+        }
+    }
+
+    /**
+     * Regista os bytes de um documento gerado
+     */
+    public void recordBytes(String templateName, DocumentType type, long bytes) {
+        Counter.builder(BYTES_COUNTER)
+                .description("Bytes de documentos gerados")
+                .baseUnit("bytes")
+                .tag("template", tagValue(templateName))
+                .tag("type", type != null ? type.name() : UNKNOWN)
+                .register(meterRegistry)
+                .increment(bytes);
+    }
+
+    /**
+     * Conta um erro de geração pelo tipo da exceção. O nome do template só deve ser indicado depois
+     * de resolvido, para que nomes arbitrários vindos do pedido não criem novas séries.
+     */
+    public void recordError(String templateName, Throwable error) {
+        meterRegistry.counter(ERRORS_COUNTER,
+                "exception", error.getClass().getSimpleName(),
+                "template", tagValue(templateName)).increment();
+    }
+
+    /**
+     * Regista a latência de uma tentativa de entrega de callback e o respetivo resultado
+     * (classe do status HTTP, ex: "2xx", ou "error" quando não houve resposta)
+     */
+    public void recordCallback(String callbackType, String outcome, long nanos) {
+        Timer.builder(CALLBACK_TIMER)
+                .description("Latência das tentativas de entrega de callbacks")
+                .tag("type", callbackType)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram(histogramsEnabled)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String tagValue(String templateName) {
+        return templateName != null ? templateName : UNKNOWN;
+    }
+}
@@ -0,0 +1,24 @@
+package pt.ama.service.metrics;
+
+import lombok.Getter;
+
+/**
+ * Etapas da geração de um documento medidas pelo DocumentMetrics.
+ * O nome é usado na tag "stage" das métricas e no header Server-Timing.
+ */
+@Getter
+public enum GenerationStage {
+
+    RESOLVE("resolve", "Obtenção e validação do template"),
+    VALIDATION("validation", "Validação dos campos obrigatórios"),
+    RENDER("render", "Processamento do template Qute"),
+    GENERATION("generation", "Geração do documento (PDF, email ou SMS)");
+
+    private final String metricName;
+    private final String description;
+
+    GenerationStage(String metricName, String description) {
+        this.metricName = metricName;
+        this.description = description;
+    }
+}
@@ -0,0 +1,41 @@
+package pt.ama.service.metrics;
+
+import jakarta.enterprise.context.RequestScoped;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Duração de cada etapa da geração no pedido HTTP atual, enviada ao cliente no header Server-Timing
+ * (ver ServerTimingFilter). Etapas repetidas no mesmo pedido são somadas.
+ */
+@RequestScoped
+public class StageTimings {
+
+    private final Map<GenerationStage, Long> durations = new EnumMap<>(GenerationStage.class);
+
+    public synchronized void add(GenerationStage stage, long nanos) {
+        durations.merge(stage, nanos, Long::sum);
+    }
+
+    public synchronized boolean isEmpty() {
+        return durations.isEmpty();
+    }
+
+    /**
+     * Valor do header Server-Timing, ex: "resolve;dur=0.42, render;dur=3.10", com durações em milissegundos
+     */
+    public synchronized String toHeaderValue() {
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<GenerationStage, Long> entry : durations.entrySet()) {
+            if (!header.isEmpty()) {
+                header.append(", ");
+            }
+            header.append(entry.getKey().getMetricName())
+                    .append(";dur=")
+                    .append(String.format(Locale.ROOT, "%.2f", entry.getValue() / 1_000_000.0));
+        }
+        return header.toString();
+    }
+}
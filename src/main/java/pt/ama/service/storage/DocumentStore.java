@@ -0,0 +1,167 @@
+package pt.ama.service.storage;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Armazenamento local (sistema de ficheiros) de documentos gerados para entrega por referência.
+ * Cada documento ocupa dois ficheiros: o conteúdo (id) e os metadados (id.properties); os
+ * metadados são escritos por último, pelo que só documentos completos ficam visíveis.
+ */
+@ApplicationScoped
+public class DocumentStore {
+
+    private static final Logger LOG = Logger.getLogger(DocumentStore.class);
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final String METADATA_SUFFIX = ".properties";
+
+    @ConfigProperty(name = "document.store.directory", defaultValue = "${java.io.tmpdir}/sistemplate-documents")
+    String directory;
+
+    @ConfigProperty(name = "document.store.ttl", defaultValue = "24H")
+    Duration ttl;
+
+    @ConfigProperty(name = "document.store.cleanup-interval", defaultValue = "1H")
+    Duration cleanupInterval;
+
+    private Path root;
+    private ScheduledExecutorService cleanupScheduler;
+
+    @PostConstruct
+    void init() {
+        root = Paths.get(directory);
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o diretório de documentos: " + root, e);
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        cleanupScheduler = Executors.newSingleThreadScheduledExecutor();
+        cleanupScheduler.scheduleWithFixedDelay(this::removeExpired,
+            cleanupInterval.toMillis(), cleanupInterval.toMillis(), TimeUnit.MILLISECONDS);
+        LOG.infof("Armazenamento de documentos em %s (validade: %s)", root, ttl);
+    }
+
+    public StoredDocument store(byte[] content, String filename, String contentType) {
+        String id = UUID.randomUUID().toString();
+        Path contentPath = root.resolve(id);
+        Instant expiresAt = Instant.now().plus(ttl);
+
+        Properties metadata = new Properties();
+        metadata.setProperty("filename", filename);
+        metadata.setProperty("contentType", contentType);
+        metadata.setProperty("size", String.valueOf(content.length));
+        metadata.setProperty("expiresAt", String.valueOf(expiresAt.toEpochMilli()));
+
+        try {
+            Files.write(contentPath, content);
+            Path tempMetadata = root.resolve(id + METADATA_SUFFIX + ".tmp");
+            try (OutputStream output = Files.newOutputStream(tempMetadata)) {
+                metadata.store(output, null);
+            }
+            Files.move(tempMetadata, root.resolve(id + METADATA_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            delete(id);
+            throw new UncheckedIOException("Erro ao guardar documento " + filename, e);
+        }
+
+        LOG.debugf("Documento guardado: %s (%d bytes, expira em %s)", id, content.length, expiresAt);
+        return new StoredDocument(id, filename, contentType, content.length, expiresAt, contentPath);
+    }
+
+    /**
+     * Procura um documento não expirado. Ids fora do formato esperado são ignorados,
+     * o que impede que um id construído aponte para fora do diretório.
+     */
+    public Optional<StoredDocument> find(String id) {
+        if (id == null || !ID_PATTERN.matcher(id).matches()) {
+            return Optional.empty();
+        }
+
+        Path metadataPath = root.resolve(id + METADATA_SUFFIX);
+        if (!Files.exists(metadataPath)) {
+            return Optional.empty();
+        }
+
+        try (InputStream input = Files.newInputStream(metadataPath)) {
+            Properties metadata = new Properties();
+            metadata.load(input);
+
+            StoredDocument document = new StoredDocument(
+                id,
+                metadata.getProperty("filename"),
+                metadata.getProperty("contentType"),
+                Long.parseLong(metadata.getProperty("size")),
+                Instant.ofEpochMilli(Long.parseLong(metadata.getProperty("expiresAt"))),
+                root.resolve(id));
+
+            return document.isExpired(Instant.now()) ? Optional.empty() : Optional.of(document);
+        } catch (IOException | RuntimeException e) {
+            LOG.warnf("Metadados inválidos para o documento %s: %s", id, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void delete(String id) {
+        try {
+            Files.deleteIfExists(root.resolve(id + METADATA_SUFFIX));
+            Files.deleteIfExists(root.resolve(id));
+        } catch (IOException e) {
+            LOG.warnf("Erro ao remover documento %s: %s", id, e.getMessage());
+        }
+    }
+
+    void removeExpired() {
+        int removed = 0;
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, "*" + METADATA_SUFFIX)) {
+            for (Path metadataPath : entries) {
+                String fileName = metadataPath.getFileName().toString();
+                String id = fileName.substring(0, fileName.length() - METADATA_SUFFIX.length());
+                if (find(id).isEmpty()) {
+                    delete(id);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Erro ao remover documentos expirados", e);
+        }
+
+        if (removed > 0) {
+            LOG.infof("Documentos expirados removidos: %d", removed);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (cleanupScheduler != null) {
+            cleanupScheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pt.ama.service.storage;
+
+import io.quarkus.runtime.LaunchMode;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Gera e valida links de download assinados (HMAC-SHA256 sobre id + data de expiração).
+ * Em produção o arranque falha se a chave não estiver definida ou for a chave pública de desenvolvimento.
+ */
+@ApplicationScoped
+public class DownloadLinkSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    static final String DEV_SIGNING_KEY = "dev-only-signing-key-change-me";
+
+    @ConfigProperty(name = "document.download.base-url")
+    String baseUrl;
+
+    @ConfigProperty(name = "document.download.signing-key")
+    Optional<String> signingKey;
+
+    void onStart(@Observes StartupEvent event) {
+        if (LaunchMode.current() == LaunchMode.NORMAL) {
+            validateSigningKey();
+        }
+    }
+
+    void validateSigningKey() {
+        String key = signingKey.orElse("");
+        if (key.isBlank() || DEV_SIGNING_KEY.equals(key)) {
+            throw new IllegalStateException("Chave de assinatura dos links de download em falta ou com o valor de "
+                + "desenvolvimento: defina document.download.signing-key (DOCUMENT_DOWNLOAD_SIGNING_KEY)");
+        }
+    }
+
+    public String signedUrl(StoredDocument document) {
+        long expires = document.expiresAt().getEpochSecond();
+        return String.format("%s/api/documents/download/%s?expires=%d&signature=%s",
+            stripTrailingSlash(baseUrl), document.id(), expires, sign(document.id(), expires));
+    }
+
+    /**
+     * Valida a assinatura (em tempo constante) e a expiração do link
+     */
+    public boolean isValid(String id, long expires, String signature) {
+        if (signature == null || Instant.now().getEpochSecond() >= expires) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+            sign(id, expires).getBytes(StandardCharsets.US_ASCII),
+            signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    String sign(String id, long expires) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            String key = signingKey.orElseThrow(() ->
+                new IllegalStateException("document.download.signing-key não definida"));
+            mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            byte[] digest = mac.doFinal((id + ":" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Erro ao assinar link de download", e);
+        }
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,14 @@
+package pt.ama.service.storage;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Documento gerado guardado no DocumentStore, disponível para download até expiresAt
+ */
+public record StoredDocument(String id, String filename, String contentType, long size, Instant expiresAt, Path path) {
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,81 @@
+package pt.ama.service.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spans e propagação de contexto OpenTelemetry nos pontos que a instrumentação do Quarkus não cobre:
+ * mensagens Kafka (cliente nativo), callbacks guardados no outbox e pedidos do HttpClient do JDK.
+ * Os pedidos REST são instrumentados automaticamente pelo quarkus-opentelemetry.
+ */
+@ApplicationScoped
+public class DocumentTracing {
+
+    static final String INSTRUMENTATION_NAME = "pt.ama.sistemplate";
+
+    private static final TextMapGetter<Map<String, String>> MAP_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(Map<String, String> carrier) {
+            return carrier.keySet();
+        }
+
+        @Override
+        public String get(Map<String, String> carrier, String key) {
+            return carrier != null ? carrier.get(key) : null;
+        }
+    };
+
+    @Inject
+    OpenTelemetry openTelemetry;
+
+    private Tracer tracer;
+
+    @PostConstruct
+    void init() {
+        tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+
+    public SpanBuilder spanBuilder(String name) {
+        return tracer.spanBuilder(name);
+    }
+
+    /**
+     * Escreve o contexto (traceparent/tracestate) no transporte indicado
+     */
+    public <C> void inject(Context context, C carrier, TextMapSetter<C> setter) {
+        openTelemetry.getPropagators().getTextMapPropagator().inject(context, carrier, setter);
+    }
+
+    /**
+     * Lê o contexto do transporte indicado; sem cabeçalhos de trace devolve o contexto raiz
+     */
+    public <C> Context extract(C carrier, TextMapGetter<C> getter) {
+        return openTelemetry.getPropagators().getTextMapPropagator().extract(Context.root(), carrier, getter);
+    }
+
+    /**
+     * Serializa o contexto atual, para ser persistido com trabalho que continua mais tarde (ex: outbox de callbacks)
+     */
+    public Map<String, String> capture() {
+        Map<String, String> carrier = new HashMap<>();
+        inject(Context.current(), carrier, Map::put);
+        return carrier.isEmpty() ? null : carrier;
+    }
+
+    /**
+     * Reconstrói um contexto guardado com capture()
+     */
+    public Context restore(Map<String, String> carrier) {
+        return carrier == null || carrier.isEmpty() ? Context.root() : extract(carrier, MAP_GETTER);
+    }
+}
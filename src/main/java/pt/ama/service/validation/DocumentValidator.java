@@ -57,11 +57,8 @@ public class DocumentValidator {
             LOG.warnf("Dados vazios fornecidos para geração de documento");
         }
         
-        // Validar tamanho dos dados (limite de 10MB em JSON)
-        String dataString = data.toString();
-        if (dataString.length() > 10_000_000) {
-            throw new DocumentValidationException("Dados muito grandes (limite: 10MB)");
-        }
+        // Os limites de tamanho e estrutura (document.data.*) são verificados na desserialização,
+        // pelo BoundedJsonNodeDeserializer, antes de os dados serem materializados
     }
     
     /**
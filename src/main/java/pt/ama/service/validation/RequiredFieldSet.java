@@ -0,0 +1,229 @@
+package pt.ama.service.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Campos obrigatórios de um template já compilados numa árvore de caminhos, para serem validados
+ * numa única passagem pelos dados: os prefixos comuns (ex: "cliente.nome" e "cliente.nif") são
+ * percorridos uma só vez e não há parsing dos caminhos em cada pedido.
+ * <p>
+ * Sintaxe suportada: campos separados por ponto ("user.address.city"), índices de arrays
+ * ("items[0].price") e wildcards ("items[*].price", presente se todos os elementos do array o tiverem).
+ * Os dados podem ser um JsonNode ou a representação Map/List equivalente.
+ */
+public final class RequiredFieldSet {
+
+    private static final RequiredFieldSet EMPTY = new RequiredFieldSet(List.of(), new Node(), List.of());
+
+    private final List<String> fields;
+    private final Node root;
+    private final List<String> invalidFields;
+
+    private RequiredFieldSet(List<String> fields, Node root, List<String> invalidFields) {
+        this.fields = fields;
+        this.root = root;
+        this.invalidFields = invalidFields;
+    }
+
+    public static RequiredFieldSet compile(List<String> requiredFields) {
+        if (requiredFields == null || requiredFields.isEmpty()) {
+            return EMPTY;
+        }
+
+        Node root = new Node();
+        List<String> invalidFields = new ArrayList<>();
+        for (String field : requiredFields) {
+            List<Segment> segments = parse(field);
+            if (segments.isEmpty()) {
+                // Caminho vazio: nunca está presente, tal como antes
+                invalidFields.add(field);
+                continue;
+            }
+            Node node = root;
+            for (Segment segment : segments) {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+            node.fields.add(field);
+        }
+        return new RequiredFieldSet(List.copyOf(requiredFields), root, List.copyOf(invalidFields));
+    }
+
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    public int size() {
+        return fields.size();
+    }
+
+    /**
+     * Devolve os campos obrigatórios ausentes ou com valor null, pela ordem em que foram declarados
+     */
+    public List<String> findMissing(Object data) {
+        if (fields.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> missing = new LinkedHashSet<>(invalidFields);
+        root.check(data, missing);
+        if (missing.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> ordered = new ArrayList<>(missing.size());
+        for (String field : fields) {
+            if (missing.remove(field)) {
+                ordered.add(field);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Divide o caminho em segmentos. Um segmento com parênteses retos mal formados é tratado
+     * como nome de campo literal.
+     */
+    static List<Segment> parse(String fieldPath) {
+        if (fieldPath == null || fieldPath.isBlank()) {
+            return List.of();
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        int start = 0;
+        int length = fieldPath.length();
+        while (start <= length) {
+            int end = fieldPath.indexOf('.', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                parsePart(fieldPath.substring(start, end), segments);
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static void parsePart(String part, List<Segment> segments) {
+        int bracket = part.indexOf('[');
+        if (bracket < 0 || !part.endsWith("]")) {
+            segments.add(new Segment.Field(part));
+            return;
+        }
+
+        List<Segment> indices = new ArrayList<>();
+        int position = bracket;
+        while (position < part.length()) {
+            int close = part.indexOf(']', position);
+            if (part.charAt(position) != '[' || close < 0) {
+                segments.add(new Segment.Field(part));
+                return;
+            }
+            String index = part.substring(position + 1, close);
+            if (index.equals("*")) {
+                indices.add(Segment.Wildcard.INSTANCE);
+            } else if (!index.isEmpty() && index.length() <= 9 && index.chars().allMatch(Character::isDigit)) {
+                indices.add(new Segment.Index(Integer.parseInt(index)));
+            } else {
+                segments.add(new Segment.Field(part));
+                return;
+            }
+            position = close + 1;
+        }
+
+        if (bracket > 0) {
+            segments.add(new Segment.Field(part.substring(0, bracket)));
+        }
+        segments.addAll(indices);
+    }
+
+    sealed interface Segment {
+
+        record Field(String name) implements Segment {
+        }
+
+        record Index(int index) implements Segment {
+        }
+
+        enum Wildcard implements Segment {
+            INSTANCE
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<Segment, Node> children = new LinkedHashMap<>();
+        private final List<String> fields = new ArrayList<>(1);
+
+        /**
+         * Verifica os campos deste nó e dos descendentes para o valor indicado
+         */
+        void check(Object value, Set<String> missing) {
+            if (isAbsent(value)) {
+                collect(missing);
+                return;
+            }
+
+            for (Map.Entry<Segment, Node> child : children.entrySet()) {
+                if (child.getKey() instanceof Segment.Wildcard) {
+                    Iterable<?> elements = elements(value);
+                    if (elements == null) {
+                        child.getValue().collect(missing);
+                        continue;
+                    }
+                    for (Object element : elements) {
+                        child.getValue().check(element, missing);
+                    }
+                } else {
+                    child.getValue().check(child(value, child.getKey()), missing);
+                }
+            }
+        }
+
+        void collect(Set<String> missing) {
+            missing.addAll(fields);
+            for (Node child : children.values()) {
+                child.collect(missing);
+            }
+        }
+
+        private static boolean isAbsent(Object value) {
+            return value == null || (value instanceof JsonNode node && (node.isNull() || node.isMissingNode()));
+        }
+
+        private static Object child(Object value, Segment segment) {
+            if (segment instanceof Segment.Field field) {
+                if (value instanceof JsonNode node) {
+                    return node.isObject() ? node.get(field.name()) : null;
+                }
+                return value instanceof Map<?, ?> map ? map.get(field.name()) : null;
+            }
+
+            int index = ((Segment.Index) segment).index();
+            if (value instanceof JsonNode node) {
+                return node.isArray() ? node.get(index) : null;
+            }
+            return value instanceof List<?> list && index < list.size() ? list.get(index) : null;
+        }
+
+        private static Iterable<?> elements(Object value) {
+            if (value instanceof JsonNode node) {
+                return node.isArray() ? node : null;
+            }
+            return value instanceof Collection<?> collection ? collection : null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RequiredFieldSet" + fields;
+    }
+}
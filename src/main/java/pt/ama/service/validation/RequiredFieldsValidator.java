@@ -1,22 +1,24 @@
 package pt.ama.service.validation;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.jboss.logging.Logger;
 import pt.ama.exception.RequiredFieldsValidationException;
 import pt.ama.model.Template;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Validador responsável por verificar se os campos obrigatórios estão presentes nos dados da requisição.
+ * Os campos são compilados num RequiredFieldSet; no fluxo de geração a versão compilada vem do
+ * CompiledTemplateCache, para que a compilação aconteça uma vez por versão do template.
  */
 @ApplicationScoped
 public class RequiredFieldsValidator {
-    
+
     private static final Logger LOG = Logger.getLogger(RequiredFieldsValidator.class);
-    
+
     /**
      * Valida se todos os campos obrigatórios definidos no template estão presentes nos dados.
      *
@@ -25,85 +27,59 @@ public class RequiredFieldsValidator {
      * @throws RequiredFieldsValidationException se algum campo obrigatório estiver ausente
      */
     public void validateRequiredFields(Template template, Map<String, Object> dataMap) {
-        LOG.debugf("RequiredFieldsValidator: Iniciando validação de campos obrigatórios para template '%s'", 
+        validateRequiredFields(template, compile(template), dataMap);
+    }
+
+    /**
+     * Valida se todos os campos obrigatórios definidos no template estão presentes nos dados JSON,
+     * percorrendo diretamente o JsonNode.
+     *
+     * @param template Template contendo os metadados com campos obrigatórios
+     * @param data Dados da requisição
+     * @throws RequiredFieldsValidationException se algum campo obrigatório estiver ausente
+     */
+    public void validateRequiredFields(Template template, JsonNode data) {
+        validateRequiredFields(template, compile(template), data);
+    }
+
+    /**
+     * Valida os dados com os campos obrigatórios já compilados do template.
+     *
+     * @param template Template a que os campos pertencem (usado nas mensagens)
+     * @param requiredFields Campos obrigatórios compilados
+     * @param data Dados da requisição (JsonNode ou Map)
+     * @throws RequiredFieldsValidationException se algum campo obrigatório estiver ausente
+     */
+    public void validateRequiredFields(Template template, RequiredFieldSet requiredFields, Object data) {
+        LOG.debugf("RequiredFieldsValidator: Iniciando validação de campos obrigatórios para template '%s'",
                   template.getName());
-        
-        if (template.getMetadata() == null || 
-            template.getMetadata().getRequiredFields() == null || 
-            template.getMetadata().getRequiredFields().isEmpty()) {
-            LOG.debugf("RequiredFieldsValidator: Template '%s' não possui campos obrigatórios definidos", 
+
+        if (requiredFields.isEmpty()) {
+            LOG.debugf("RequiredFieldsValidator: Template '%s' não possui campos obrigatórios definidos",
                       template.getName());
             return;
         }
-        
-        List<String> requiredFields = template.getMetadata().getRequiredFields();
-        List<String> missingFields = findMissingFields(requiredFields, dataMap);
-        
+
+        List<String> missingFields = requiredFields.findMissing(data);
+
         if (!missingFields.isEmpty()) {
-            LOG.warnf("RequiredFieldsValidator: Campos obrigatórios ausentes no template '%s': %s", 
+            LOG.warnf("RequiredFieldsValidator: Campos obrigatórios ausentes no template '%s': %s",
                      template.getName(), String.join(", ", missingFields));
             throw new RequiredFieldsValidationException(template.getName(), missingFields);
         }
-        
+
         LOG.infof("RequiredFieldsValidator: Validação concluída com sucesso para template '%s'. " +
-                 "Todos os %d campos obrigatórios estão presentes", 
+                 "Todos os %d campos obrigatórios estão presentes",
                  template.getName(), requiredFields.size());
     }
-    
-    /**
-     * Encontra os campos obrigatórios que estão ausentes nos dados.
-     *
-     * @param requiredFields Lista de campos obrigatórios
-     * @param dataMap Dados da requisição
-     * @return Lista de campos ausentes
-     */
-    private List<String> findMissingFields(List<String> requiredFields, Map<String, Object> dataMap) {
-        List<String> missingFields = new ArrayList<>();
-        
-        for (String field : requiredFields) {
-            if (!isFieldPresent(field, dataMap)) {
-                missingFields.add(field);
-            }
-        }
-        
-        return missingFields;
-    }
-    
+
     /**
-     * Verifica se um campo está presente nos dados.
-     * Suporta campos aninhados usando notação de ponto (ex: "user.name").
-     *
-     * @param fieldPath Caminho do campo (pode ser aninhado)
-     * @param dataMap Dados da requisição
-     * @return true se o campo estiver presente e não for null
+     * Compila os campos obrigatórios definidos nos metadados do template
      */
-    private boolean isFieldPresent(String fieldPath, Map<String, Object> dataMap) {
-        if (fieldPath == null || fieldPath.trim().isEmpty()) {
-            return false;
-        }
-        
-        String[] fieldParts = fieldPath.split("\\.");
-        Object currentValue = dataMap;
-        
-        for (String fieldPart : fieldParts) {
-            if (!(currentValue instanceof Map)) {
-                return false;
-            }
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> currentMap = (Map<String, Object>) currentValue;
-            
-            if (!currentMap.containsKey(fieldPart)) {
-                return false;
-            }
-            
-            currentValue = currentMap.get(fieldPart);
-            
-            if (currentValue == null) {
-                return false;
-            }
+    public static RequiredFieldSet compile(Template template) {
+        if (template.getMetadata() == null) {
+            return RequiredFieldSet.compile(null);
         }
-        
-        return true;
+        return RequiredFieldSet.compile(template.getMetadata().getRequiredFields());
     }
-}
\ No newline at end of file
+}
@@ -28,7 +28,7 @@ public class TemplateValidator {
         validateTemplateContent(request);
         validateTemplateType(request.getType());
 
-        if (!currentName.equals(request.getName()) && 
+        if (!currentName.equalsIgnoreCase(request.getName()) && 
             templateRepository.existsByName(request.getName())) {
             throw new TemplateAlreadyExistsException(request.getName());
         }
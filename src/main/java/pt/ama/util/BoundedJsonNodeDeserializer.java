@@ -0,0 +1,167 @@
+package pt.ama.util;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import pt.ama.exception.DataLimitExceededException;
+
+import java.io.IOException;
+
+/**
+ * Desserializa os dados de um pedido para JsonNode verificando, no mesmo passo do parsing, o tamanho
+ * em bytes, a profundidade, o número de elementos dos arrays e o tamanho das strings. Um payload fora
+ * dos limites é rejeitado assim que o limite é ultrapassado, sem ser materializado por completo.
+ * Usado nos campos data dos pedidos HTTP e das mensagens Kafka.
+ */
+public class BoundedJsonNodeDeserializer extends StdDeserializer<JsonNode> {
+
+    private static final int SIZE_CHECK_INTERVAL = 1024;
+
+    private final Limits limits;
+
+    public BoundedJsonNodeDeserializer() {
+        this(Limits.fromConfig());
+    }
+
+    public BoundedJsonNodeDeserializer(Limits limits) {
+        super(JsonNode.class);
+        this.limits = limits;
+    }
+
+    @Override
+    public JsonNode deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        long start = offset(parser.currentTokenLocation());
+        return read(parser, context, context.getNodeFactory(), 1, start);
+    }
+
+    @Override
+    public JsonNode getNullValue(DeserializationContext context) {
+        return NullNode.getInstance();
+    }
+
+    private JsonNode read(JsonParser parser, DeserializationContext context, JsonNodeFactory nodes,
+                          int depth, long start) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            return (JsonNode) context.handleUnexpectedToken(JsonNode.class, parser);
+        }
+
+        switch (token) {
+            case START_OBJECT -> {
+                checkDepth(parser, depth);
+                ObjectNode object = nodes.objectNode();
+                String name;
+                while ((name = parser.nextFieldName()) != null) {
+                    // Por campo: nomes e valores numéricos não passam por nenhuma outra verificação de tamanho
+                    checkSize(parser, start);
+                    parser.nextToken();
+                    object.set(name, read(parser, context, nodes, depth + 1, start));
+                }
+                checkSize(parser, start);
+                return object;
+            }
+            case START_ARRAY -> {
+                checkDepth(parser, depth);
+                ArrayNode array = nodes.arrayNode();
+                int count = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (++count > limits.maxArrayLength()) {
+                        throw new DataLimitExceededException(parser,
+                            "array com mais de " + limits.maxArrayLength() + " elementos");
+                    }
+                    if (count % SIZE_CHECK_INTERVAL == 0) {
+                        checkSize(parser, start);
+                    }
+                    array.add(read(parser, context, nodes, depth + 1, start));
+                }
+                checkSize(parser, start);
+                return array;
+            }
+            case VALUE_STRING -> {
+                if (parser.getTextLength() > limits.maxStringLength()) {
+                    throw new DataLimitExceededException(parser,
+                        "texto com mais de " + limits.maxStringLength() + " caracteres");
+                }
+                checkSize(parser, start);
+                return nodes.textNode(parser.getText());
+            }
+            case VALUE_NUMBER_INT -> {
+                return switch (parser.getNumberType()) {
+                    case INT -> nodes.numberNode(parser.getIntValue());
+                    case LONG -> nodes.numberNode(parser.getLongValue());
+                    default -> nodes.numberNode(parser.getBigIntegerValue());
+                };
+            }
+            case VALUE_NUMBER_FLOAT -> {
+                if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL
+                        || context.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)) {
+                    return nodes.numberNode(parser.getDecimalValue());
+                }
+                return nodes.numberNode(parser.getDoubleValue());
+            }
+            case VALUE_TRUE, VALUE_FALSE -> {
+                return nodes.booleanNode(token == JsonToken.VALUE_TRUE);
+            }
+            case VALUE_NULL -> {
+                return nodes.nullNode();
+            }
+            case VALUE_EMBEDDED_OBJECT -> {
+                Object value = parser.getEmbeddedObject();
+                return value instanceof byte[] bytes ? nodes.binaryNode(bytes) : nodes.pojoNode(value);
+            }
+            default -> {
+                return (JsonNode) context.handleUnexpectedToken(JsonNode.class, parser);
+            }
+        }
+    }
+
+    private void checkDepth(JsonParser parser, int depth) throws DataLimitExceededException {
+        if (depth > limits.maxDepth()) {
+            throw new DataLimitExceededException(parser, "profundidade superior a " + limits.maxDepth());
+        }
+    }
+
+    private void checkSize(JsonParser parser, long start) throws DataLimitExceededException {
+        if (start < 0) {
+            return;
+        }
+        long size = offset(parser.currentLocation()) - start;
+        if (size > limits.maxBytes()) {
+            throw new DataLimitExceededException(parser, "tamanho superior a " + limits.maxBytes() + " bytes");
+        }
+    }
+
+    /**
+     * Posição no input: em bytes quando o parser lê bytes (HTTP, Kafka), em caracteres quando lê texto
+     */
+    private static long offset(JsonLocation location) {
+        long bytes = location.getByteOffset();
+        return bytes >= 0 ? bytes : location.getCharOffset();
+    }
+
+    /**
+     * Limites aplicados aos dados, lidos de document.data.* quando não são indicados explicitamente
+     */
+    public record Limits(long maxBytes, int maxDepth, int maxArrayLength, int maxStringLength) {
+
+        static Limits fromConfig() {
+            Config config = ConfigProvider.getConfig();
+            return new Limits(
+                config.getOptionalValue("document.data.max-bytes", Long.class).orElse(10_000_000L),
+                config.getOptionalValue("document.data.max-depth", Integer.class).orElse(64),
+                config.getOptionalValue("document.data.max-array-length", Integer.class).orElse(100_000),
+                config.getOptionalValue("document.data.max-string-length", Integer.class).orElse(5_000_000)
+            );
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package pt.ama.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Adapta um Reader a um InputStream, codificando os caracteres à medida que são lidos.
+ * Opcionalmente limita o número de caracteres lidos, rejeitando o conteúdo assim que o limite é ultrapassado.
+ */
+public class ReaderInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final CharsetEncoder encoder;
+    private final long maxChars;
+    private final String limitMessage;
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer bytes;
+    private boolean endOfInput;
+    private boolean flushed;
+    private long charsRead;
+
+    public ReaderInputStream(Reader reader, Charset charset) {
+        this(reader, charset, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maxChars     número máximo de caracteres a ler do Reader
+     * @param limitMessage mensagem da IllegalArgumentException lançada quando o limite é ultrapassado
+     */
+    public ReaderInputStream(Reader reader, Charset charset, long maxChars, String limitMessage) {
+        this.reader = reader;
+        this.maxChars = maxChars;
+        this.limitMessage = limitMessage;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) Math.ceil(BUFFER_SIZE * encoder.maxBytesPerChar()));
+        this.chars.flip();
+        this.bytes.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (!bytes.hasRemaining()) {
+            if (flushed) {
+                return -1;
+            }
+            fill();
+        }
+
+        int count = Math.min(len, bytes.remaining());
+        bytes.get(target, off, count);
+        return count;
+    }
+
+    /**
+     * Lê mais caracteres (se necessário) e codifica-os para o buffer de bytes
+     */
+    private void fill() throws IOException {
+        if (!endOfInput) {
+            // compact preserva caracteres pendentes (por exemplo, metade de um par surrogate)
+            chars.compact();
+            int read = reader.read(chars);
+            chars.flip();
+            if (read == -1) {
+                endOfInput = true;
+            } else if ((charsRead += read) > maxChars) {
+                throw new IllegalArgumentException(limitMessage);
+            }
+        }
+
+        bytes.compact();
+        CoderResult result = encoder.encode(chars, bytes, endOfInput);
+        if (endOfInput && result.isUnderflow()) {
+            encoder.flush(bytes);
+            flushed = true;
+        }
+        bytes.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
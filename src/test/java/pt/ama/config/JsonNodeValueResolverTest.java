@@ -0,0 +1,75 @@
+package pt.ama.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.qute.Engine;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonNodeValueResolverTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Engine engine = Engine.builder()
+            .addDefaults()
+            .addValueResolver(new JsonNodeValueResolver())
+            .build();
+
+    @Test
+    void shouldResolveScalarFieldsAsJavaValues() throws Exception {
+        JsonNode data = objectMapper.readTree("""
+                {"nome": "João Silva", "valor": 150, "ativo": true, "nota": null}
+                """);
+
+        String result = render("{nome} {valor} {#if ativo}ativo{/if} {#if valor > 100}alto{/if} [{nota}]", data);
+
+        assertEquals("João Silva 150 ativo alto []", result);
+    }
+
+    @Test
+    void shouldResolveNestedObjects() throws Exception {
+        JsonNode data = objectMapper.readTree("""
+                {"cliente": {"morada": {"cidade": "Lisboa"}}}
+                """);
+
+        assertEquals("Lisboa", render("{cliente.morada.cidade}", data));
+    }
+
+    @Test
+    void shouldIterateArraysOfObjectsAndScalars() throws Exception {
+        JsonNode data = objectMapper.readTree("""
+                {"linhas": [{"descricao": "A", "qtd": 1}, {"descricao": "B", "qtd": 2}], "tags": ["x", "y"]}
+                """);
+
+        String result = render("{#for l in linhas}{l_count}:{l.descricao}={l.qtd};{/for}"
+                + "{#each tags}{it}{/each} {linhas.size} {tags.0}", data);
+
+        assertEquals("1:A=1;2:B=2;xy 2 x", result);
+    }
+
+    @Test
+    void shouldSupportMapStyleAccessors() throws Exception {
+        JsonNode data = objectMapper.readTree("""
+                {"campos": {"a": 1, "b": 2}}
+                """);
+
+        String result = render("{campos.size} {campos.get('b')} {campos.containsKey('c')} {campos.keys}", data);
+
+        assertEquals("2 2 false [a, b]", result);
+    }
+
+    @Test
+    void shouldIterateObjectsAsKeyValueEntries() throws Exception {
+        JsonNode data = objectMapper.readTree("""
+                {"campos": {"a": 1, "b": "x", "c": {"d": "y"}}}
+                """);
+
+        String result = render("{#for campo in campos}{campo.key}={campo.value};{/for} {campos.c.d}", data);
+
+        assertEquals("a=1;b=x;c={d=y}; y", result);
+    }
+
+    private String render(String template, JsonNode data) {
+        return engine.parse(template).data(data).render();
+    }
+}
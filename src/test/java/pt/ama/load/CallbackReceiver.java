@@ -0,0 +1,94 @@
+package pt.ama.load;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP local que recebe os callbacks da geração assíncrona e regista o instante de
+ * chegada de cada eventId. Só lê do payload o eventId e o status (os primeiros campos escritos
+ * pelo CallbackPayloadWriter); o resto do corpo, incluindo o documento em Base64, é descartado.
+ */
+final class CallbackReceiver implements AutoCloseable {
+
+    record Completion(long receivedAtNanos, boolean success) {
+    }
+
+    // O corpo continua a ser lido depois do parser, para a ligação poder ser reutilizada
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Completion> completions = new ConcurrentHashMap<>();
+
+    private CallbackReceiver() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/callback", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    static CallbackReceiver start() throws IOException {
+        return new CallbackReceiver();
+    }
+
+    String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/callback";
+    }
+
+    Completion completion(String eventId) {
+        return completions.get(eventId);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long receivedAt = System.nanoTime();
+        try (InputStream body = exchange.getRequestBody()) {
+            String eventId = null;
+            String status = null;
+            try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while ((eventId == null || status == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.currentName();
+                        parser.nextToken();
+                        if ("eventId".equals(field)) {
+                            eventId = parser.getText();
+                        } else if ("status".equals(field)) {
+                            status = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+            body.transferTo(OutputStream.nullOutputStream());
+
+            if (eventId != null) {
+                completions.putIfAbsent(eventId, new Completion(receivedAt, "SUCCESS".equals(status)));
+            }
+            exchange.sendResponseHeaders(eventId != null ? 200 : 400, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,167 @@
+package pt.ama.load;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broker Kafka em memória para o harness de carga: cada tópico tem uma única partição (0) e as
+ * mensagens publicadas são entregues de imediato aos consumers subscritos. Baseado no MockProducer
+ * e MockConsumer do kafka-clients, sem rede nem serialização para além da do próprio producer.
+ * Mensagens publicadas num tópico sem consumers são descartadas.
+ */
+class InMemoryKafka {
+
+    private static final int PARTITION = 0;
+
+    private final Map<String, List<InMemoryConsumer>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Long> offsets = new HashMap<>();
+
+    InMemoryProducer producer() {
+        return new InMemoryProducer(this);
+    }
+
+    InMemoryConsumer consumer() {
+        return new InMemoryConsumer(this);
+    }
+
+    /**
+     * Sincronizado para que cada consumer receba os offsets de um tópico por ordem crescente
+     * (o MockConsumer ignora registos com offset anterior à posição atual)
+     */
+    synchronized void publish(ProducerRecord<String, byte[]> record) {
+        long offset = offsets.merge(record.topic(), 1L, Long::sum) - 1;
+        long timestamp = record.timestamp() != null ? record.timestamp() : System.currentTimeMillis();
+
+        for (InMemoryConsumer consumer : subscribers.getOrDefault(record.topic(), List.of())) {
+            consumer.deliver(new ConsumerRecord<>(record.topic(), PARTITION, offset, timestamp,
+                    TimestampType.CREATE_TIME,
+                    record.key() != null ? record.key().length() : -1,
+                    record.value() != null ? record.value().length : -1,
+                    record.key(), record.value(),
+                    new RecordHeaders(record.headers().toArray()), Optional.empty()));
+        }
+    }
+
+    private void register(String topic, InMemoryConsumer consumer) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(consumer);
+    }
+
+    private void unregister(InMemoryConsumer consumer) {
+        subscribers.values().forEach(consumers -> consumers.remove(consumer));
+    }
+
+    /**
+     * Producer que, além de completar o envio, entrega o registo aos consumers do tópico.
+     * O histórico do MockProducer é limpo a cada envio para não reter as mensagens durante a carga.
+     */
+    static class InMemoryProducer extends MockProducer<String, byte[]> {
+
+        private final InMemoryKafka broker;
+
+        InMemoryProducer(InMemoryKafka broker) {
+            super(true, new StringSerializer(), new ByteArraySerializer());
+            this.broker = broker;
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, byte[]> record, Callback callback) {
+            Future<RecordMetadata> result = super.send(record, callback);
+            broker.publish(record);
+            clear();
+            return result;
+        }
+    }
+
+    /**
+     * Consumer com a partição 0 de cada tópico subscrito atribuída de imediato. O MockConsumer não
+     * bloqueia no poll; aqui o poll espera até chegar uma mensagem, um wakeup ou o fim do timeout.
+     */
+    static class InMemoryConsumer extends MockConsumer<String, byte[]> {
+
+        private final InMemoryKafka broker;
+        private final Semaphore available = new Semaphore(0);
+
+        InMemoryConsumer(InMemoryKafka broker) {
+            super(OffsetResetStrategy.EARLIEST);
+            this.broker = broker;
+        }
+
+        @Override
+        public synchronized void subscribe(Collection<String> topics, ConsumerRebalanceListener listener) {
+            super.subscribe(topics, listener);
+
+            List<TopicPartition> partitions = topics.stream()
+                    .map(topic -> new TopicPartition(topic, PARTITION))
+                    .toList();
+            Map<TopicPartition, Long> beginning = new HashMap<>();
+            partitions.forEach(partition -> beginning.put(partition, 0L));
+
+            rebalance(partitions);
+            updateBeginningOffsets(beginning);
+            topics.forEach(topic -> broker.register(topic, this));
+        }
+
+        void deliver(ConsumerRecord<String, byte[]> record) {
+            addRecord(record);
+            available.release();
+        }
+
+        @Override
+        public ConsumerRecords<String, byte[]> poll(Duration timeout) {
+            ConsumerRecords<String, byte[]> records = super.poll(Duration.ZERO);
+            if (!records.isEmpty()) {
+                return records;
+            }
+
+            // As licenças só sinalizam entregas; o conteúdo é sempre lido pelo poll do MockConsumer
+            available.drainPermits();
+            records = super.poll(Duration.ZERO);
+            if (!records.isEmpty()) {
+                return records;
+            }
+
+            try {
+                available.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.poll(Duration.ZERO);
+        }
+
+        @Override
+        public synchronized void wakeup() {
+            super.wakeup();
+            available.release();
+        }
+
+        @Override
+        public synchronized void close() {
+            broker.unregister(this);
+            super.close();
+        }
+    }
+}
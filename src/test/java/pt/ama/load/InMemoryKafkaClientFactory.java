@@ -0,0 +1,30 @@
+package pt.ama.load;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.producer.Producer;
+import pt.ama.service.kafka.KafkaClientFactory;
+
+import java.util.Properties;
+
+/**
+ * Substitui os clientes Kafka reais por clientes ligados a um broker em memória.
+ * Ativado apenas pelo LoadTestProfile.
+ */
+@Alternative
+@ApplicationScoped
+public class InMemoryKafkaClientFactory extends KafkaClientFactory {
+
+    private final InMemoryKafka broker = new InMemoryKafka();
+
+    @Override
+    public Producer<String, byte[]> createProducer(Properties properties) {
+        return broker.producer();
+    }
+
+    @Override
+    public Consumer<String, byte[]> createConsumer(Properties properties) {
+        return broker.consumer();
+    }
+}
@@ -0,0 +1,33 @@
+package pt.ama.load;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * MongoDB em memória (mongo-java-server) numa porta efémera, para o harness de carga correr sem
+ * infraestrutura externa. Suporta as operações usadas pela aplicação, mas não reproduz o custo de
+ * I/O de um servidor real: as latências medidas refletem sobretudo a geração de documentos.
+ */
+public class InMemoryMongoResource implements QuarkusTestResourceLifecycleManager {
+
+    private MongoServer server;
+
+    @Override
+    public Map<String, String> start() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        return Map.of("quarkus.mongodb.connection-string",
+                "mongodb://" + address.getHostString() + ":" + address.getPort());
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package pt.ama.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estatísticas de heap e GC durante a fase medida: coletas e tempo de GC por coletor (diferença
+ * entre o início e o fim), pico de heap usado (amostrado periodicamente) e bytes alocados.
+ * Os valores são da JVM inteira, incluindo o gerador de carga que corre no mesmo processo.
+ */
+final class JvmSampler {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final Map<String, long[]> initialGc = new HashMap<>();
+    private final AtomicLong peakHeapUsed = new AtomicLong();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "load-jvm-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long initialAllocated;
+
+    private JvmSampler() {
+        collectors.forEach(gc -> initialGc.put(gc.getName(), new long[]{gc.getCollectionCount(), gc.getCollectionTime()}));
+        initialAllocated = allocatedBytes();
+        sampler.scheduleAtFixedRate(this::sampleHeap, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    static JvmSampler start() {
+        return new JvmSampler();
+    }
+
+    Map<String, Object> stop() {
+        sampler.shutdownNow();
+        sampleHeap();
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        long totalGcMillis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            long[] initial = initialGc.getOrDefault(collector.getName(), new long[2]);
+            long collections = collector.getCollectionCount() - initial[0];
+            long timeMillis = collector.getCollectionTime() - initial[1];
+            totalGcMillis += timeMillis;
+            gc.put(collector.getName(), Map.of("collections", collections, "timeMs", timeMillis));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("heapUsedPeakBytes", peakHeapUsed.get());
+        stats.put("heapUsedEndBytes", memory.getHeapMemoryUsage().getUsed());
+        stats.put("heapCommittedBytes", memory.getHeapMemoryUsage().getCommitted());
+        stats.put("heapMaxBytes", memory.getHeapMemoryUsage().getMax());
+        long allocated = allocatedBytes();
+        stats.put("allocatedBytes", allocated >= 0 && initialAllocated >= 0 ? allocated - initialAllocated : -1);
+        stats.put("gcTotalTimeMs", totalGcMillis);
+        stats.put("gc", gc);
+        return stats;
+    }
+
+    private void sampleHeap() {
+        peakHeapUsed.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+    }
+
+    /**
+     * Aproximação dos bytes alocados no heap desde o arranque da JVM, ou -1 se não for suportado
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemoryEnabled()) {
+            return hotspot.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,72 @@
+package pt.ama.load;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regista as latências (em nanossegundos) de um tipo de pedido e calcula os percentis por
+ * ordenação no fim da execução. Guarda todas as amostras: a memória usada é 8 bytes por pedido.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+    private long bytes;
+
+    synchronized void record(long nanos, long responseBytes) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        bytes += responseBytes;
+    }
+
+    synchronized void error() {
+        errors++;
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    synchronized long errors() {
+        return errors;
+    }
+
+    /**
+     * Resumo em milissegundos: contagem, erros, bytes, média, p50, p95, p99 e máximo
+     */
+    synchronized Map<String, Object> summary() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("errors", errors);
+        summary.put("bytes", bytes);
+        summary.put("meanMs", count > 0 ? millis((long) Arrays.stream(sorted).average().orElse(0)) : 0);
+        summary.put("p50Ms", millis(percentile(sorted, 50)));
+        summary.put("p95Ms", millis(percentile(sorted, 95)));
+        summary.put("p99Ms", millis(percentile(sorted, 99)));
+        summary.put("maxMs", millis(count > 0 ? sorted[count - 1] : 0));
+        return summary;
+    }
+
+    /**
+     * Percentil pelo método nearest-rank
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,184 @@
+package pt.ama.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import pt.ama.model.DocumentType;
+import pt.ama.model.Template;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Templates e payloads do harness de carga: faturas em PDF (simples e detalhada), notificação por
+ * email e por SMS, com número de linhas variável segundo uma distribuição configurável.
+ */
+final class LoadData {
+
+    /**
+     * Templates semeados no MongoDB em memória; o nome é o usado em load.templates
+     */
+    enum LoadTemplate {
+        PDF_SIMPLES("carga-fatura-simples", DocumentType.PDF, """
+                <html><body>
+                <h1>Fatura {numero}</h1>
+                <p>Cliente: {cliente.nome} ({cliente.nif})</p>
+                <table>
+                {#for item in items}
+                <tr><td>{item.descricao}</td><td>{item.quantidade}</td><td>{item.preco}</td></tr>
+                {/for}
+                </table>
+                <p>Total: {total}</p>
+                </body></html>
+                """),
+        PDF_DETALHADO("carga-fatura-detalhada", DocumentType.PDF, """
+                <html><head><style>td { padding: 2px; } .destaque { font-weight: bold; }</style></head><body>
+                <h1>Fatura {numero}</h1>
+                <p>Cliente: {cliente.nome} ({cliente.nif})</p>
+                <p>Morada: {cliente.morada.rua}, {cliente.morada.codigoPostal} {cliente.morada.cidade}</p>
+                <table>
+                {#for item in items}
+                <tr{#if item.quantidade > 5} class="destaque"{/if}>
+                <td>{item_count}</td><td>{item.descricao}</td><td>{item.quantidade}</td><td>{item.preco}</td>
+                <td>{#for tag in item.tags}{tag}{#if tag_hasNext}, {/if}{/for}</td>
+                <td>{#if item.desconto}{item.desconto.percentagem}%{#else}-{/if}</td>
+                </tr>
+                {/for}
+                </table>
+                {#if total > 1000}<p class="destaque">Total: {total}</p>{#else}<p>Total: {total}</p>{/if}
+                </body></html>
+                """),
+        EMAIL("carga-notificacao-email", DocumentType.EMAIL, """
+                <html><body>
+                <p>Caro(a) {cliente.nome},</p>
+                <p>Segue o resumo da fatura {numero}:</p>
+                <ul>
+                {#for item in items}
+                <li>{item.descricao} x {item.quantidade}: {item.preco} EUR</li>
+                {/for}
+                </ul>
+                <p>Total: {total} EUR</p>
+                </body></html>
+                """),
+        SMS("carga-notificacao-sms", DocumentType.SMS,
+                "{cliente.nome}, a fatura {numero} com {items.size} artigos no valor de {total} EUR esta disponivel.");
+
+        private final String templateName;
+        private final DocumentType type;
+        private final String content;
+
+        LoadTemplate(String templateName, DocumentType type, String content) {
+            this.templateName = templateName;
+            this.type = type;
+            this.content = content;
+        }
+
+        String templateName() {
+            return templateName;
+        }
+
+        static LoadTemplate parse(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+
+        Template toTemplate() {
+            Template template = new Template();
+            template.setName(templateName);
+            template.setNameKey(Template.toNameKey(templateName));
+            template.setType(type);
+            template.setContent(content);
+            template.setDescription("Template do harness de carga");
+            template.setCreatedAt(LocalDateTime.now());
+            template.setUpdatedAt(LocalDateTime.now());
+
+            Template.TemplateMetadata metadata = new Template.TemplateMetadata();
+            metadata.setRequiredFields(List.of("numero", "cliente.nome", "items[*].descricao", "total"));
+            template.setMetadata(metadata);
+            return template;
+        }
+    }
+
+    private LoadData() {
+    }
+
+    /**
+     * Dados de uma fatura com o número de linhas indicado e os campos de destino do template
+     * (email para EMAIL, telefone para SMS)
+     */
+    static ObjectNode payload(ObjectMapper objectMapper, LoadTemplate template, int rows, long sequence) {
+        ObjectNode root = objectMapper.createObjectNode();
+        if (template == LoadTemplate.EMAIL) {
+            root.put("to", "cliente" + sequence % 1000 + "@example.pt");
+            root.put("subject", "Fatura FT 2025/" + sequence);
+        } else if (template == LoadTemplate.SMS) {
+            root.put("to", "+3519" + String.format("%08d", sequence % 100_000_000));
+        }
+        root.put("numero", "FT 2025/" + sequence);
+
+        ObjectNode cliente = root.putObject("cliente");
+        cliente.put("nome", "Cliente " + sequence % 1000);
+        cliente.put("nif", String.format("%09d", 100_000_000 + sequence % 900_000_000));
+        cliente.putObject("morada")
+                .put("rua", "Rua Augusta " + (1 + sequence % 300))
+                .put("codigoPostal", "1100-053")
+                .put("cidade", "Lisboa");
+
+        ArrayNode items = root.putArray("items");
+        double total = 0;
+        for (int i = 0; i < rows; i++) {
+            double preco = 10 + (i % 90) * 1.25;
+            ObjectNode item = items.addObject()
+                    .put("descricao", "Artigo " + i + " - descrição com acentuação")
+                    .put("quantidade", 1 + i % 10)
+                    .put("preco", preco);
+            item.putArray("tags").add("categoria-" + (i % 5)).add("lote-" + (i % 3));
+            if (i % 4 == 0) {
+                item.putObject("desconto").put("percentagem", 5 + i % 20);
+            }
+            total += preco * (1 + i % 10);
+        }
+        root.put("total", Math.round(total * 100) / 100.0);
+        return root;
+    }
+
+    /**
+     * Escolha aleatória ponderada a partir de uma especificação "valor:peso,valor:peso"
+     */
+    static final class WeightedChoice<T> {
+
+        private final List<T> values = new ArrayList<>();
+        private final List<Integer> cumulativeWeights = new ArrayList<>();
+        private int totalWeight;
+
+        static <T> WeightedChoice<T> parse(String spec, Function<String, T> parser) {
+            WeightedChoice<T> choice = new WeightedChoice<>();
+            for (String entry : spec.split(",")) {
+                String[] parts = entry.split(":");
+                int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+                if (weight <= 0) {
+                    continue;
+                }
+                choice.totalWeight += weight;
+                choice.values.add(parser.apply(parts[0].trim()));
+                choice.cumulativeWeights.add(choice.totalWeight);
+            }
+            if (choice.values.isEmpty()) {
+                throw new IllegalArgumentException("Especificação sem valores com peso positivo: " + spec);
+            }
+            return choice;
+        }
+
+        T next(Random random) {
+            int target = random.nextInt(totalWeight);
+            for (int i = 0; i < values.size(); i++) {
+                if (target < cumulativeWeights.get(i)) {
+                    return values.get(i);
+                }
+            }
+            return values.get(values.size() - 1);
+        }
+    }
+}
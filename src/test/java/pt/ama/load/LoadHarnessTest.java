@@ -0,0 +1,317 @@
+package pt.ama.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import pt.ama.dto.DocumentRequest;
+import pt.ama.load.LoadData.LoadTemplate;
+import pt.ama.load.LoadData.WeightedChoice;
+import pt.ama.repository.TemplateRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Harness de carga reprodutível: arranca a aplicação com MongoDB e Kafka em memória (LoadTestProfile)
+ * e gera pedidos a uma taxa constante (open-loop) contra os endpoints síncrono, Base64 e assíncrono,
+ * com uma mistura configurável de templates e tamanhos de dados. As latências são medidas a partir do
+ * instante planeado de cada pedido, pelo que atrasos do próprio gerador não escondem filas no servidor.
+ * Nos pedidos assíncronos mede-se também o tempo até à chegada do callback.
+ * <p>
+ * Executar com:
+ * {@code ./mvnw -Pload-test test -Dload.rate=50 -Dload.duration=60}
+ * <p>
+ * Propriedades (valores por omissão entre parênteses):
+ * <ul>
+ *   <li>load.rate - pedidos por segundo (20)</li>
+ *   <li>load.duration / load.warmup - segundos da fase medida e do aquecimento (30 / 10)</li>
+ *   <li>load.mix - pesos por endpoint (sync:50,base64:30,async:20)</li>
+ *   <li>load.templates - pesos por template (pdf-simples:40,pdf-detalhado:20,email:25,sms:15)</li>
+ *   <li>load.rows - pesos por número de linhas da fatura (10:80,100:15,1000:5)</li>
+ *   <li>load.max-concurrency - pedidos em curso; acima disso o pedido é contado como descartado (256)</li>
+ *   <li>load.callback-timeout - segundos de espera pelos callbacks pendentes (60)</li>
+ *   <li>load.seed - semente da mistura de pedidos (42)</li>
+ *   <li>load.report - ficheiro do relatório JSON (target/load-report.json)</li>
+ * </ul>
+ */
+@QuarkusTest
+@TestProfile(LoadTestProfile.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoadHarnessTest {
+
+    private static final Logger LOG = Logger.getLogger(LoadHarnessTest.class);
+
+    enum Endpoint {
+        SYNC("generate", 200),
+        BASE64("generate-base64", 200),
+        ASYNC("generate/async", 202);
+
+        private final String path;
+        private final int expectedStatus;
+
+        Endpoint(String path, int expectedStatus) {
+            this.path = path;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    private record Scenario(Endpoint endpoint, LoadTemplate template, int rows, long sequence) {
+    }
+
+    /**
+     * Resultados de uma fase: latências por endpoint e eventIds assíncronos à espera de callback
+     */
+    private static final class LoadRun {
+        final Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+        final LatencyRecorder callbacks = new LatencyRecorder();
+        final Map<String, Long> pendingCallbacks = new ConcurrentHashMap<>();
+        final AtomicLong dropped = new AtomicLong();
+        long scheduled;
+        long startNanos;
+        long endNanos;
+
+        LoadRun() {
+            for (Endpoint endpoint : Endpoint.values()) {
+                recorders.put(endpoint, new LatencyRecorder());
+            }
+        }
+    }
+
+    @TestHTTPResource("/api/documents")
+    URI documentsUri;
+
+    @Inject
+    TemplateRepository templateRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private final double rate = Double.parseDouble(System.getProperty("load.rate", "20"));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 10));
+    private final String mixSpec = System.getProperty("load.mix", "sync:50,base64:30,async:20");
+    private final String templateSpec = System.getProperty("load.templates", "pdf-simples:40,pdf-detalhado:20,email:25,sms:15");
+    private final String rowsSpec = System.getProperty("load.rows", "10:80,100:15,1000:5");
+    private final int maxConcurrency = Integer.getInteger("load.max-concurrency", 256);
+    private final Duration callbackTimeout = Duration.ofSeconds(Long.getLong("load.callback-timeout", 60));
+    private final long seed = Long.getLong("load.seed", 42);
+    private final Path reportPath = Path.of(System.getProperty("load.report", "target/load-report.json"));
+
+    private final AtomicLong sequence = new AtomicLong();
+    private HttpClient httpClient;
+
+    @Test
+    void runLoad() throws Exception {
+        seedTemplates();
+
+        WeightedChoice<Endpoint> endpoints = WeightedChoice.parse(mixSpec, value -> Endpoint.valueOf(value.toUpperCase()));
+        WeightedChoice<LoadTemplate> templates = WeightedChoice.parse(templateSpec, LoadTemplate::parse);
+        WeightedChoice<Integer> rows = WeightedChoice.parse(rowsSpec, Integer::valueOf);
+
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        try (HttpClient client = httpClient; CallbackReceiver receiver = CallbackReceiver.start()) {
+
+            // A mesma semente em cada fase: o aquecimento exercita a mesma mistura que é medida
+            LOG.infof("Aquecimento: %d s a %.1f pedidos/s", warmup.toSeconds(), rate);
+            LoadRun warmupRun = drive(warmup, new Random(seed), endpoints, templates, rows, receiver);
+            awaitCallbacks(warmupRun, receiver);
+
+            LOG.infof("Fase medida: %d s a %.1f pedidos/s", duration.toSeconds(), rate);
+            JvmSampler jvm = JvmSampler.start();
+            LoadRun run = drive(duration, new Random(seed), endpoints, templates, rows, receiver);
+            awaitCallbacks(run, receiver);
+            Map<String, Object> jvmStats = jvm.stop();
+
+            Map<String, Object> report = report(run, jvmStats);
+            Files.createDirectories(reportPath.toAbsolutePath().getParent());
+            objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportPath.toFile(), report);
+            LOG.infof("Relatório de carga escrito em %s", reportPath.toAbsolutePath());
+
+            long completed = run.recorders.values().stream().mapToLong(LatencyRecorder::count).sum();
+            assertTrue(completed > 0, "Nenhum pedido concluído com sucesso");
+        }
+    }
+
+    private void seedTemplates() {
+        templateRepository.deleteAll();
+        for (LoadTemplate template : LoadTemplate.values()) {
+            templateRepository.persist(template.toTemplate());
+        }
+    }
+
+    /**
+     * Envia pedidos a intervalos fixos durante a fase. A escolha do cenário é feita na thread do
+     * gerador (Random não partilhado); a construção do payload e o envio correm numa thread virtual.
+     */
+    private LoadRun drive(Duration phase, Random random, WeightedChoice<Endpoint> endpoints,
+                          WeightedChoice<LoadTemplate> templates, WeightedChoice<Integer> rows,
+                          CallbackReceiver receiver) {
+        LoadRun run = new LoadRun();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        Semaphore inFlight = new Semaphore(maxConcurrency);
+
+        run.startNanos = System.nanoTime();
+        long end = run.startNanos + phase.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = run.startNanos + i * interval;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                run.scheduled++;
+                if (!inFlight.tryAcquire()) {
+                    run.dropped.incrementAndGet();
+                    continue;
+                }
+                Scenario scenario = new Scenario(endpoints.next(random), templates.next(random),
+                        rows.next(random), sequence.incrementAndGet());
+                executor.submit(() -> {
+                    try {
+                        send(scenario, intendedStart, run, receiver);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        run.endNanos = System.nanoTime();
+        return run;
+    }
+
+    private void send(Scenario scenario, long intendedStart, LoadRun run, CallbackReceiver receiver) {
+        LatencyRecorder recorder = run.recorders.get(scenario.endpoint());
+        try {
+            DocumentRequest request = new DocumentRequest();
+            request.setTemplateName(scenario.template().templateName());
+            request.setData(LoadData.payload(objectMapper, scenario.template(), scenario.rows(), scenario.sequence()));
+            if (scenario.endpoint() == Endpoint.ASYNC) {
+                request.setCallbackUrl(receiver.url());
+            }
+
+            HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(documentsUri + "/" + scenario.endpoint().path))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(120))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(request)))
+                    .build();
+
+            HttpResponse<byte[]> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+            long latency = System.nanoTime() - intendedStart;
+
+            if (response.statusCode() != scenario.endpoint().expectedStatus) {
+                recorder.error();
+                LOG.debugf("Pedido %s/%s falhou com status %d", scenario.endpoint(), scenario.template(), response.statusCode());
+                return;
+            }
+            recorder.record(latency, response.body().length);
+
+            if (scenario.endpoint() == Endpoint.ASYNC) {
+                String eventId = objectMapper.readTree(response.body()).path("eventId").asText(null);
+                if (eventId != null) {
+                    run.pendingCallbacks.put(eventId, intendedStart);
+                }
+            }
+        } catch (Exception e) {
+            recorder.error();
+            LOG.debugf("Pedido %s/%s falhou: %s", scenario.endpoint(), scenario.template(), e.getMessage());
+        }
+    }
+
+    /**
+     * Espera pelos callbacks dos pedidos assíncronos aceites e regista a latência ponta-a-ponta;
+     * os que não chegam dentro de load.callback-timeout contam como erro
+     */
+    private void awaitCallbacks(LoadRun run, CallbackReceiver receiver) throws InterruptedException {
+        long deadline = System.nanoTime() + callbackTimeout.toNanos();
+        while (System.nanoTime() < deadline
+                && !run.pendingCallbacks.keySet().stream().allMatch(eventId -> receiver.completion(eventId) != null)) {
+            Thread.sleep(100);
+        }
+
+        run.pendingCallbacks.forEach((eventId, intendedStart) -> {
+            CallbackReceiver.Completion completion = receiver.completion(eventId);
+            if (completion == null || !completion.success()) {
+                run.callbacks.error();
+            } else {
+                run.callbacks.record(completion.receivedAtNanos() - intendedStart, 0);
+            }
+        });
+    }
+
+    private Map<String, Object> report(LoadRun run, Map<String, Object> jvmStats) {
+        double elapsedSeconds = (run.endNanos - run.startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        long completed = run.recorders.values().stream().mapToLong(LatencyRecorder::count).sum();
+        long errors = run.recorders.values().stream().mapToLong(LatencyRecorder::errors).sum();
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", rate);
+        config.put("durationSeconds", duration.toSeconds());
+        config.put("warmupSeconds", warmup.toSeconds());
+        config.put("mix", mixSpec);
+        config.put("templates", templateSpec);
+        config.put("rows", rowsSpec);
+        config.put("maxConcurrency", maxConcurrency);
+        config.put("seed", seed);
+
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("javaVersion", Runtime.version().toString());
+        environment.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("scheduled", run.scheduled);
+        summary.put("completed", completed);
+        summary.put("errors", errors);
+        summary.put("dropped", run.dropped.get());
+        summary.put("elapsedSeconds", elapsedSeconds);
+        summary.put("throughputPerSecond", elapsedSeconds > 0 ? completed / elapsedSeconds : 0);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        run.recorders.forEach((endpoint, recorder) -> endpoints.put(endpoint.name().toLowerCase(), recorder.summary()));
+        endpoints.put("async-callback", run.callbacks.summary());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("config", config);
+        report.put("environment", environment);
+        report.put("summary", summary);
+        report.put("latency", endpoints);
+        report.put("jvm", jvmStats);
+        return report;
+    }
+}
@@ -0,0 +1,35 @@
+package pt.ama.load;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Perfil do harness de carga: MongoDB e Kafka em memória, consumer de geração ativo e logs de
+ * pedido reduzidos para que o output não distorça as medições.
+ */
+public class LoadTestProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of(
+                "kafka.consumer.enabled", "true",
+                "callback.max-concurrency-per-host", "64",
+                "pdf.warmup.enabled", "true",
+                "quarkus.log.category.\"pt.ama.resource\".level", "WARN",
+                "quarkus.log.category.\"pt.ama.service\".level", "WARN",
+                "quarkus.log.category.\"com.itextpdf\".level", "WARN");
+    }
+
+    @Override
+    public Set<Class<?>> getEnabledAlternatives() {
+        return Set.of(InMemoryKafkaClientFactory.class);
+    }
+
+    @Override
+    public List<TestResourceEntry> testResources() {
+        return List.of(new TestResourceEntry(InMemoryMongoResource.class));
+    }
+}
@@ -0,0 +1,83 @@
+package pt.ama.repository;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import pt.ama.model.DocumentType;
+import pt.ama.model.Template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Busca por nome com muitos templates: a igualdade em nameKey encontra os mesmos templates que a regex
+ * case-insensitive (implementação anterior). A latência é medida no módulo JMH (perfil benchmark), não aqui.
+ * Requer MongoDB (Dev Services ou local). Executar com: ./mvnw test -Dtest=TemplateLookupBenchmarkTest -Dbenchmark=true
+ */
+@QuarkusTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TemplateLookupBenchmarkTest {
+
+    private static final int TEMPLATE_COUNT = Integer.getInteger("benchmark.templates", 10_000);
+    private static final int LOOKUPS = Integer.getInteger("benchmark.lookups", 2_000);
+    private static final String PREFIX = "bench-lookup-";
+    private static final Logger LOG = Logger.getLogger(TemplateLookupBenchmarkTest.class);
+
+    @Inject
+    TemplateRepository templateRepository;
+
+    @Inject
+    TemplateIndexBootstrapper indexBootstrapper;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        List<Template> templates = new ArrayList<>(TEMPLATE_COUNT);
+        for (int i = 0; i < TEMPLATE_COUNT; i++) {
+            Template template = new Template();
+            template.setName(PREFIX + i);
+            template.setNameKey(Template.toNameKey(template.getName()));
+            template.setType(DocumentType.PDF);
+            template.setContent("<html><body>{title}</body></html>");
+            template.setActive(true);
+            templates.add(template);
+        }
+        templateRepository.persist(templates);
+        indexBootstrapper.ensureIndexes();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        templateRepository.delete("{'name': {'$regex': ?1}}", "^" + PREFIX);
+    }
+
+    @Test
+    @DisplayName("Should find the same templates with indexed nameKey lookup as with regex lookup")
+    void shouldMatchRegexLookupResults() {
+        Function<String, Template> regexLookup = name -> templateRepository
+                .find("{'name': {'$regex': ?1, '$options': 'i'}, 'active': true}", "^" + name + "$")
+                .firstResult();
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            String name = (PREFIX + ThreadLocalRandom.current().nextInt(TEMPLATE_COUNT)).toUpperCase();
+            Template expected = regexLookup.apply(name);
+            Template actual = templateRepository.findByName(name);
+
+            assertNotNull(actual, "Template não encontrado por nameKey: " + name);
+            assertEquals(expected.getId(), actual.getId());
+        }
+
+        LOG.infof("Lookup por nome com %d templates: %d buscas por nameKey iguais às por regex", TEMPLATE_COUNT, LOOKUPS);
+    }
+}
@@ -0,0 +1,42 @@
+package pt.ama.resource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ByteRangeTest {
+
+    @Test
+    void shouldParseClosedRange() {
+        ByteRange range = ByteRange.parse("bytes=10-19", 100);
+
+        assertEquals(new ByteRange(10, 19), range);
+        assertEquals(10, range.length());
+        assertEquals("bytes 10-19/100", range.contentRange(100));
+    }
+
+    @Test
+    void shouldParseOpenAndSuffixRanges() {
+        assertEquals(new ByteRange(90, 99), ByteRange.parse("bytes=90-", 100));
+        assertEquals(new ByteRange(80, 99), ByteRange.parse("bytes=-20", 100));
+        assertEquals(new ByteRange(0, 99), ByteRange.parse("bytes=-500", 100));
+        assertEquals(new ByteRange(50, 99), ByteRange.parse("bytes=50-1000", 100));
+    }
+
+    @Test
+    void shouldServeWholeDocumentForUnsupportedHeaders() {
+        assertNull(ByteRange.parse(null, 100));
+        assertNull(ByteRange.parse("items=0-10", 100));
+        assertNull(ByteRange.parse("bytes=0-10,20-30", 100));
+        assertNull(ByteRange.parse("bytes=abc", 100));
+    }
+
+    @Test
+    void shouldRejectRangesOutsideDocument() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=100-", 100));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=20-10", 100));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 100));
+    }
+}
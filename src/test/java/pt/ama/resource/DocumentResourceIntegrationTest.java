@@ -7,10 +7,15 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import pt.ama.dto.DocumentRequest;
 import pt.ama.service.DocumentService;
+import pt.ama.service.PreparedDocument;
+
+import java.io.OutputStream;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static pt.ama.util.TemplateTestUtils.createDocumentRequest;
 
@@ -25,8 +30,15 @@ class DocumentResourceIntegrationTest {
     void shouldGenerateDocumentViaRestEndpoint() throws Exception {
 
         byte[] mockDocument = "Mock PDF content".getBytes();
-        when(documentService.generateDocument(any(DocumentRequest.class)))
-                .thenReturn(mockDocument);
+        PreparedDocument preparedDocument = mock(PreparedDocument.class);
+        when(preparedDocument.getFilename()).thenReturn("test-template.pdf");
+        when(preparedDocument.getContentType()).thenReturn("application/pdf");
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(mockDocument);
+            return null;
+        }).when(preparedDocument).writeTo(any(OutputStream.class));
+        when(documentService.prepare(any(DocumentRequest.class)))
+                .thenReturn(preparedDocument);
 
         DocumentRequest request = createDocumentRequest("test-template", null);
 
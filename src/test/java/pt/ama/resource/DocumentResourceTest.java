@@ -3,13 +3,17 @@ package pt.ama.resource;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import pt.ama.dto.DocumentRequest;
 import pt.ama.dto.DocumentResponse;
 import pt.ama.service.DocumentService;
+import pt.ama.service.PreparedDocument;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,20 +44,20 @@ class DocumentResourceTest {
 
         DocumentRequest request = createDocumentRequest(templateName, null);
 
-        when(documentService.generateDocument(any(DocumentRequest.class)))
-                .thenReturn(expectedDocument);
+        when(documentService.prepare(any(DocumentRequest.class)))
+                .thenReturn(preparedDocument("test-template.pdf", expectedDocument));
 
 
         Response response = documentResource.generateDocument(request);
 
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
-        assertEquals(expectedDocument, response.getEntity());
+        assertArrayEquals(expectedDocument, writeEntity(response));
         assertEquals("application/pdf", response.getHeaderString("Content-Type"));
         assertEquals("attachment; filename=\"test-template.pdf\"",
                 response.getHeaderString("Content-Disposition"));
 
-        verify(documentService, times(1)).generateDocument(request);
+        verify(documentService, times(1)).prepare(request);
     }
 
     @Test
@@ -66,8 +70,8 @@ class DocumentResourceTest {
 
         DocumentRequest request = createDocumentRequest(templateName, customFilename);
 
-        when(documentService.generateDocument(any(DocumentRequest.class)))
-                .thenReturn(expectedDocument);
+        when(documentService.prepare(any(DocumentRequest.class)))
+                .thenReturn(preparedDocument("custom-report.pdf", expectedDocument));
 
 
         Response response = documentResource.generateDocument(request);
@@ -77,7 +81,7 @@ class DocumentResourceTest {
         assertEquals("attachment; filename=\"custom-report.pdf\"",
                 response.getHeaderString("Content-Disposition"));
 
-        verify(documentService, times(1)).generateDocument(request);
+        verify(documentService, times(1)).prepare(request);
     }
 
     @Test
@@ -90,8 +94,8 @@ class DocumentResourceTest {
 
         DocumentRequest request = createDocumentRequest(templateName, filenameWithExtension);
 
-        when(documentService.generateDocument(any(DocumentRequest.class)))
-                .thenReturn(expectedDocument);
+        when(documentService.prepare(any(DocumentRequest.class)))
+                .thenReturn(preparedDocument("report.pdf", expectedDocument));
 
 
         Response response = documentResource.generateDocument(request);
@@ -101,7 +105,7 @@ class DocumentResourceTest {
         assertEquals("attachment; filename=\"report.pdf\"",
                 response.getHeaderString("Content-Disposition"));
 
-        verify(documentService, times(1)).generateDocument(request);
+        verify(documentService, times(1)).prepare(request);
     }
 
     @Test
@@ -170,17 +174,17 @@ class DocumentResourceTest {
 
         DocumentRequest request = createDocumentRequest(templateName, null);
 
-        when(documentService.generateDocument(any(DocumentRequest.class)))
-                .thenReturn(emptyDocument);
+        when(documentService.prepare(any(DocumentRequest.class)))
+                .thenReturn(preparedDocument("test-template.pdf", emptyDocument));
 
 
         Response response = documentResource.generateDocument(request);
 
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
-        assertEquals(emptyDocument, response.getEntity());
+        assertArrayEquals(emptyDocument, writeEntity(response));
 
-        verify(documentService, times(1)).generateDocument(request);
+        verify(documentService, times(1)).prepare(request);
     }
 
     @Test
@@ -217,7 +221,7 @@ class DocumentResourceTest {
         DocumentRequest request = createDocumentRequest(templateName, null);
 
         RuntimeException expectedException = new RuntimeException("Service error");
-        when(documentService.generateDocument(any(DocumentRequest.class)))
+        when(documentService.prepare(any(DocumentRequest.class)))
                 .thenThrow(expectedException);
 
 
@@ -226,7 +230,7 @@ class DocumentResourceTest {
         });
 
         assertEquals("Service error", thrownException.getMessage());
-        verify(documentService, times(1)).generateDocument(request);
+        verify(documentService, times(1)).prepare(request);
     }
 
     @Test
@@ -259,8 +263,8 @@ class DocumentResourceTest {
 
         byte[] document = "content".getBytes();
 
-        when(documentService.generateDocument(any(DocumentRequest.class)))
-                .thenReturn(document);
+        when(documentService.prepare(any(DocumentRequest.class)))
+                .thenReturn(preparedDocument("invoice-template.pdf", document));
 
         Response response = documentResource.generateDocument(request);
 
@@ -277,8 +281,8 @@ class DocumentResourceTest {
         DocumentRequest request = createDocumentRequest(templateName, filenameWithUppercaseExtension);
         byte[] document = "content".getBytes();
 
-        when(documentService.generateDocument(any(DocumentRequest.class)))
-                .thenReturn(document);
+        when(documentService.prepare(any(DocumentRequest.class)))
+                .thenReturn(preparedDocument("report.PDF", document));
 
 
         Response response = documentResource.generateDocument(request);
@@ -317,4 +321,23 @@ class DocumentResourceTest {
 
         verify(documentService, times(1)).generateDocument(request);
     }
-}
\ No newline at end of file
+
+    private static PreparedDocument preparedDocument(String filename, byte[] content) {
+        PreparedDocument document = mock(PreparedDocument.class);
+        when(document.getFilename()).thenReturn(filename);
+        when(document.getContentType()).thenReturn("application/pdf");
+        when(document.getTemplateName()).thenReturn("test-template");
+        doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(0);
+            output.write(content);
+            return null;
+        }).when(document).writeTo(any(OutputStream.class));
+        return document;
+    }
+
+    private static byte[] writeEntity(Response response) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        return output.toByteArray();
+    }
+}
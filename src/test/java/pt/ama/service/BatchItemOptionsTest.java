@@ -0,0 +1,46 @@
+package pt.ama.service;
+
+import org.junit.jupiter.api.Test;
+import pt.ama.dto.BatchDocumentRequest;
+import pt.ama.dto.DocumentRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BatchItemOptionsTest {
+
+    @Test
+    void shouldReduceRequestedNamesToBaseName() {
+        assertEquals("x.pdf", BatchItemOptions.baseName("../../x.pdf"));
+        assertEquals("x.pdf", BatchItemOptions.baseName("/etc/x.pdf"));
+        assertEquals("x.pdf", BatchItemOptions.baseName("..\\..\\x.pdf"));
+        assertEquals("C_x.pdf", BatchItemOptions.baseName("C:x.pdf"));
+        assertNull(BatchItemOptions.baseName(".."));
+        assertNull(BatchItemOptions.baseName("dir/"));
+    }
+
+    @Test
+    void shouldDefaultToBatchFilenameWithIndex() {
+        DocumentRequest.PdfOptions batchOptions = new DocumentRequest.PdfOptions();
+        batchOptions.setFilename("faturas.pdf");
+        batchOptions.setOrientation("landscape");
+
+        DocumentRequest.PdfOptions options = BatchItemOptions.forItem("fatura", batchOptions, 3,
+                new BatchDocumentRequest.Item(null, null));
+
+        assertEquals("faturas-3", options.getFilename());
+        assertEquals("landscape", options.getOrientation());
+        assertEquals("fatura-0", BatchItemOptions.forItem("fatura", null, 0,
+                new BatchDocumentRequest.Item(null, null)).getFilename());
+    }
+
+    @Test
+    void shouldUseSanitizedItemFilename() {
+        DocumentRequest.PdfOptions options = BatchItemOptions.forItem("fatura", null, 1,
+                new BatchDocumentRequest.Item("../../cliente-1.pdf", null));
+
+        assertEquals("cliente-1.pdf", options.getFilename());
+        assertEquals("fatura-2", BatchItemOptions.forItem("fatura", null, 2,
+                new BatchDocumentRequest.Item("../", null)).getFilename());
+    }
+}
@@ -0,0 +1,98 @@
+package pt.ama.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.ama.dto.BatchDocumentRequest;
+import pt.ama.model.Template;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DocumentBatchServiceTest {
+
+    private final DocumentBatchService batchService = new DocumentBatchService();
+
+    @BeforeEach
+    void setUp() {
+        batchService.documentService = mock(DocumentService.class);
+        batchService.objectMapper = new ObjectMapper();
+        batchService.concurrency = 2;
+        batchService.maxInFlight = 4;
+        batchService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchService.shutdown();
+    }
+
+    @Test
+    void shouldWriteErrorEntryForExceptionWithoutMessage() throws Exception {
+        when(batchService.documentService.prepare(any(), any()))
+                .thenThrow(new NullPointerException())
+                .thenThrow(new IllegalStateException("dados inválidos"));
+
+        Template template = new Template();
+        template.setName("fatura");
+        List<BatchDocumentRequest.Item> items = List.of(item(1), item(2));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        batchService.writeZip(template, null, items.iterator(), output);
+
+        Map<String, String> entries = readZip(output.toByteArray());
+        assertEquals(2, entries.size());
+        assertEquals(List.of("errors/0.txt", "errors/1.txt"), List.copyOf(entries.keySet()));
+        // Os itens são gerados em paralelo: a ordem das exceções entre índices não é determinística
+        assertEquals(Set.of(NullPointerException.class.getName(), "dados inválidos"), Set.copyOf(entries.values()));
+    }
+
+    @Test
+    void shouldWriteErrorEntryForMalformedNdjsonLine() throws Exception {
+        when(batchService.documentService.prepare(any(), any())).thenThrow(new IllegalStateException("dados inválidos"));
+
+        Template template = new Template();
+        template.setName("fatura");
+        String ndjson = "{\"data\": {\"numero\": 1}}\n{\"data\": \n\n{\"data\": {\"numero\": 3}}\n";
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        batchService.writeZip(template, null,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), output);
+
+        Map<String, String> entries = readZip(output.toByteArray());
+        assertEquals(List.of("errors/0.txt", "errors/1.txt", "errors/2.txt"), List.copyOf(entries.keySet()));
+        assertTrue(entries.get("errors/1.txt").startsWith("Linha 2 inválida"));
+        assertEquals("dados inválidos", entries.get("errors/2.txt"));
+    }
+
+    private static BatchDocumentRequest.Item item(int numero) {
+        BatchDocumentRequest.Item item = new BatchDocumentRequest.Item();
+        item.setData(new ObjectMapper().createObjectNode().put("numero", numero));
+        return item;
+    }
+
+    private static Map<String, String> readZip(byte[] content) throws Exception {
+        Map<String, String> entries = new TreeMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(content))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
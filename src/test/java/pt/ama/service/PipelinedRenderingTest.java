@@ -0,0 +1,43 @@
+package pt.ama.service;
+
+import io.quarkus.qute.Engine;
+import io.quarkus.qute.Template;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PipelinedRenderingTest {
+
+    private final Engine engine = Engine.builder().addDefaults().build();
+
+    @Test
+    void shouldStreamSameContentAsRender() throws IOException {
+        Template template = engine.parse("<html><body>{#for i in items}<p>Linha {i}</p>{/for}</body></html>");
+        List<Integer> items = IntStream.range(0, 20_000).boxed().toList();
+
+        String expected = template.data("items", items).render();
+
+        // Buffer pequeno para obrigar o processamento a esperar pela leitura
+        try (Reader reader = PipelinedRendering.start("linhas", template.data("items", items), 128)) {
+            StringWriter content = new StringWriter();
+            reader.transferTo(content);
+            assertEquals(expected, content.toString());
+        }
+    }
+
+    @Test
+    void shouldFailReadWhenRenderingFails() throws IOException {
+        Template template = engine.parse("<p>{inexistente.campo}</p>");
+
+        try (Reader reader = PipelinedRendering.start("falha", template.instance(), 128)) {
+            assertThrows(IOException.class, () -> reader.transferTo(new StringWriter()));
+        }
+    }
+}
@@ -11,14 +11,18 @@ import pt.ama.mapper.TemplateMapper;
 import pt.ama.model.DocumentStatus;
 import pt.ama.model.Template;
 import pt.ama.repository.TemplateRepository;
+import pt.ama.service.cache.CompiledTemplateCache;
+import pt.ama.service.cache.TemplateCache;
 import pt.ama.service.validation.TemplateValidator;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 class TemplateServiceTest {
@@ -32,12 +36,22 @@ class TemplateServiceTest {
     @Mock
     TemplateValidator templateValidator;
 
+    @Mock
+    CompiledTemplateCache compiledTemplateCache;
+
+    @Mock
+    TemplateCache templateCache;
+
     @InjectMocks
     TemplateService templateService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(templateCache.get(anyString(), any())).thenAnswer(invocation -> {
+            Function<String, Template> loader = invocation.getArgument(1);
+            return loader.apply(invocation.getArgument(0));
+        });
     }
 
     @Test
@@ -85,6 +99,7 @@ class TemplateServiceTest {
         Template created = templateService.createTemplate(request);
 
         assertEquals("new-template", created.getName());
+        assertEquals("new-template", created.getNameKey());
         assertTrue(created.isActive());
         assertEquals(DocumentStatus.RASCUNHO, created.getStatus());
         assertNotNull(created.getCreatedAt());
@@ -92,6 +107,7 @@ class TemplateServiceTest {
 
         verify(templateValidator).validateForCreation(request);
         verify(templateRepository).persist(template);
+        verify(templateCache).invalidate("new-template");
     }
 
     @Test
@@ -118,6 +134,8 @@ class TemplateServiceTest {
 
         verify(templateValidator).validateForUpdate(name, request);
         verify(templateRepository).persist(existingTemplate);
+        verify(compiledTemplateCache).invalidate(existingTemplate);
+        verify(templateCache, atLeastOnce()).invalidate(name);
     }
 
     @Test
@@ -132,6 +150,8 @@ class TemplateServiceTest {
         templateService.deleteTemplate(name);
 
         verify(templateRepository).delete(template);
+        verify(compiledTemplateCache).invalidate(template);
+        verify(templateCache).invalidate(name);
     }
 
     @Test
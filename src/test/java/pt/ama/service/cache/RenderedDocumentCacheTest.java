@@ -0,0 +1,118 @@
+package pt.ama.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.runtime.configuration.MemorySize;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.ama.dto.DocumentRequest;
+import pt.ama.model.DocumentType;
+import pt.ama.model.Template;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RenderedDocumentCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RenderedDocumentCache cache;
+    private Template template;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RenderedDocumentCache();
+        cache.objectMapper = objectMapper;
+
+        template = new Template();
+        template.setId(new ObjectId());
+        template.setName("certidao");
+        template.setType(DocumentType.PDF);
+        template.setVersion(new BigDecimal("1.0"));
+        template.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+    }
+
+    @Test
+    void shouldIgnoreFieldOrderInData() throws Exception {
+        String first = cache.keyOf(template, request("{\"nome\":\"Ana\",\"morada\":{\"rua\":\"A\",\"cp\":\"1000\"}}"));
+        String second = cache.keyOf(template, request("{\"morada\":{\"cp\":\"1000\",\"rua\":\"A\"},\"nome\":\"Ana\"}"));
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    void shouldChangeKeyWhenDataOptionsOrTemplateChange() throws Exception {
+        String base = cache.keyOf(template, request("{\"nome\":\"Ana\"}"));
+
+        assertNotEquals(base, cache.keyOf(template, request("{\"nome\":\"Rui\"}")));
+
+        DocumentRequest withOptions = request("{\"nome\":\"Ana\"}");
+        withOptions.setOptions(new DocumentRequest.PdfOptions());
+        withOptions.getOptions().setOrientation("landscape");
+        assertNotEquals(base, cache.keyOf(template, withOptions));
+
+        template.setUpdatedAt(template.getUpdatedAt().plusMinutes(1));
+        assertNotEquals(base, cache.keyOf(template, request("{\"nome\":\"Ana\"}")));
+    }
+
+    @Test
+    void shouldIgnoreTrailingZerosInVersion() throws Exception {
+        String base = cache.keyOf(template, request("{\"nome\":\"Ana\"}"));
+
+        template.setVersion(new BigDecimal("1.00"));
+
+        assertEquals(base, cache.keyOf(template, request("{\"nome\":\"Ana\"}")));
+    }
+
+    @Test
+    void shouldKeepSmallStreamedEntriesInMemory(@TempDir Path directory) throws Exception {
+        enable(directory);
+
+        RenderedDocumentCache.EntryWriter small = cache.newEntry("pequeno");
+        small.write(new byte[]{1, 2, 3});
+        small.commit();
+
+        RenderedDocumentCache.EntryWriter large = cache.newEntry("grande");
+        large.write(new byte[2048]);
+        large.commit();
+
+        CachedDocument smallEntry = cache.get("pequeno").orElseThrow();
+        assertArrayEquals(new byte[]{1, 2, 3}, smallEntry.content());
+        assertNull(smallEntry.file());
+
+        CachedDocument largeEntry = cache.get("grande").orElseThrow();
+        assertNotNull(largeEntry.file());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private void enable(Path directory) {
+        cache.meterRegistry = new SimpleMeterRegistry();
+        cache.enabled = true;
+        cache.ttl = Duration.ofMinutes(5);
+        cache.heapMaxSize = new MemorySize(BigInteger.valueOf(1024 * 1024));
+        cache.diskThreshold = new MemorySize(BigInteger.valueOf(1024));
+        cache.diskMaxSize = new MemorySize(BigInteger.valueOf(1024 * 1024));
+        cache.diskDirectory = directory.toString();
+        cache.init();
+    }
+
+    private DocumentRequest request(String data) throws Exception {
+        DocumentRequest request = new DocumentRequest();
+        request.setTemplateName(template.getName());
+        request.setData(objectMapper.readTree(data));
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package pt.ama.service.callback;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import pt.ama.model.CallbackOutboxEntry;
+import pt.ama.model.CallbackOutboxEntry.CallbackType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark de alocação por callback: corpo montado com String.format (implementação anterior)
+ * vs corpo escrito em streaming pelo CallbackPayloadWriter.
+ * Executar com: ./mvnw test -Dtest=CallbackPayloadAllocationBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CallbackPayloadAllocationBenchmarkTest {
+
+    private static final int DOCUMENT_SIZE = Integer.getInteger("benchmark.document-size", 4 * 1024 * 1024);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 50);
+
+    private final com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareAllocationPerCallback() throws IOException {
+        byte[] document = new byte[DOCUMENT_SIZE];
+        ThreadLocalRandom.current().nextBytes(document);
+        CallbackOutboxEntry entry = documentEntry(document.length);
+        CallbackPayloadWriter writer = new CallbackPayloadWriter(new ObjectMapper().getFactory());
+
+        for (int i = 0; i < 5; i++) {
+            legacyPayload(entry, document);
+            writer.write(entry, new ByteArrayInputStream(document), OutputStream.nullOutputStream());
+        }
+
+        long legacyBytes = measure(() -> legacyPayload(entry, document));
+        long streamingBytes = measure(() ->
+            writer.write(entry, new ByteArrayInputStream(document), OutputStream.nullOutputStream()));
+
+        System.out.printf("Documento de %d bytes%n", DOCUMENT_SIZE);
+        System.out.printf("String.format: %,d bytes alocados por callback%n", legacyBytes);
+        System.out.printf("Streaming:     %,d bytes alocados por callback%n", streamingBytes);
+
+        assertTrue(streamingBytes < legacyBytes);
+    }
+
+    private long measure(PayloadTask task) throws IOException {
+        long threadId = Thread.currentThread().threadId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        return (threadBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    /**
+     * Reproduz o corpo enviado antes do streaming, incluindo a conversão para bytes feita pelo BodyPublisher
+     */
+    private static void legacyPayload(CallbackOutboxEntry entry, byte[] document) {
+        String base64Document = Base64.getEncoder().encodeToString(document);
+        String json = String.format("""
+            {
+                "eventId": "%s",
+                "status": "SUCCESS",
+                "filename": "%s",
+                "contentType": "%s",
+                "document": "%s"
+            }
+            """, entry.getEventId(), entry.getFilename(), entry.getContentType(), base64Document);
+        json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static CallbackOutboxEntry documentEntry(long size) {
+        CallbackOutboxEntry entry = new CallbackOutboxEntry();
+        entry.setEventId("bench-event");
+        entry.setType(CallbackType.DOCUMENT);
+        entry.setFilename("bench.pdf");
+        entry.setContentType("application/pdf");
+        entry.setSize(size);
+        return entry;
+    }
+
+    @FunctionalInterface
+    private interface PayloadTask {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,61 @@
+package pt.ama.service.callback;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import pt.ama.model.CallbackOutboxEntry;
+import pt.ama.model.CallbackOutboxEntry.CallbackType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CallbackPayloadWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CallbackPayloadWriter writer = new CallbackPayloadWriter(objectMapper.getFactory());
+
+    @Test
+    void shouldWriteDocumentAsBase64() throws IOException {
+        byte[] document = "%PDF-1.7 conteúdo".getBytes(StandardCharsets.UTF_8);
+        CallbackOutboxEntry entry = new CallbackOutboxEntry();
+        entry.setEventId("event-1");
+        entry.setType(CallbackType.DOCUMENT);
+        entry.setFilename("doc.pdf");
+        entry.setContentType("application/pdf");
+        entry.setSize((long) document.length);
+
+        JsonNode json = write(entry, new ByteArrayInputStream(document));
+
+        assertEquals("event-1", json.get("eventId").asText());
+        assertEquals("SUCCESS", json.get("status").asText());
+        assertEquals("doc.pdf", json.get("filename").asText());
+        assertEquals("application/pdf", json.get("contentType").asText());
+        assertArrayEquals(document, Base64.getDecoder().decode(json.get("document").asText()));
+    }
+
+    @Test
+    void shouldEscapeErrorMessage() throws IOException {
+        CallbackOutboxEntry entry = new CallbackOutboxEntry();
+        entry.setEventId("event-2");
+        entry.setType(CallbackType.ERROR);
+        entry.setErrorMessage("Campo \"nome\" em falta\nlinha 2");
+
+        JsonNode json = write(entry, null);
+
+        assertEquals("ERROR", json.get("status").asText());
+        assertEquals("Campo \"nome\" em falta\nlinha 2", json.get("message").asText());
+    }
+
+    private JsonNode write(CallbackOutboxEntry entry, InputStream document) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.write(entry, document, output);
+        return objectMapper.readTree(output.toByteArray());
+    }
+}
@@ -1,7 +1,7 @@
 package pt.ama.service.generator;
 
 import io.quarkus.test.junit.QuarkusTest;
-import org.junit.jupiter.api.BeforeEach;
+import jakarta.inject.Inject;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import pt.ama.dto.DocumentRequest;
@@ -11,12 +11,8 @@ import static org.junit.jupiter.api.Assertions.*;
 @QuarkusTest
 class PdfGeneratorTest {
 
-    private PdfGenerator pdfGenerator;
-
-    @BeforeEach
-    void setUp() {
-        pdfGenerator = new PdfGenerator();
-    }
+    @Inject
+    PdfGenerator pdfGenerator;
 
     @Test
     @DisplayName("Should generate PDF successfully with valid HTML content")
@@ -0,0 +1,58 @@
+package pt.ama.service.kafka;
+
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DocumentKafkaConsumerShutdownTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("document-generation", 0);
+
+    @Test
+    void shouldCommitDrainedOffsetsWithPendingWakeup() {
+        WakeupOnCommitConsumer consumer = new WakeupOnCommitConsumer();
+        consumer.assign(List.of(PARTITION));
+
+        // shutdown() acorda o consumer depois do último poll: o wakeup fica por consumir
+        consumer.wakeup();
+        DocumentKafkaConsumer.commitSyncAfterWakeup(consumer, Map.of(PARTITION, new OffsetAndMetadata(42)));
+
+        assertEquals(42, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+    }
+
+    /**
+     * Como o KafkaConsumer: um wakeup pendente é entregue à próxima chamada bloqueante, incluindo commitSync
+     * (o MockConsumer só o verifica no poll)
+     */
+    private static class WakeupOnCommitConsumer extends MockConsumer<String, byte[]> {
+
+        private boolean wakeupPending;
+
+        WakeupOnCommitConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void wakeup() {
+            wakeupPending = true;
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            if (wakeupPending) {
+                wakeupPending = false;
+                throw new WakeupException();
+            }
+            super.commitSync(offsets);
+        }
+    }
+}
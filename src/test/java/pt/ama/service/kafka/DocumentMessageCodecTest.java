@@ -0,0 +1,100 @@
+package pt.ama.service.kafka;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import pt.ama.dto.DocumentGenerationMessage;
+import pt.ama.enums.CallbackDeliveryMode;
+import pt.ama.enums.MessageEncoding;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentMessageCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldRoundTripEveryEncoding() throws IOException {
+        DocumentGenerationMessage message = message();
+
+        for (MessageEncoding encoding : MessageEncoding.values()) {
+            DocumentMessageCodec codec = codec(encoding);
+            Headers headers = new RecordHeaders();
+            codec.writeHeaders(headers);
+
+            DocumentGenerationMessage decoded = codec.decode(codec.encode(message), headers);
+
+            assertEquals(encoding.getContentType(), KafkaHeaders.get(headers, KafkaHeaders.CONTENT_TYPE));
+            assertEquals(message, decoded, encoding.name());
+        }
+    }
+
+    @Test
+    void shouldReadBinaryMessagesRegardlessOfPublisherEncoding() throws IOException {
+        DocumentMessageCodec publisher = codec(MessageEncoding.SMILE);
+        DocumentMessageCodec consumer = codec(MessageEncoding.JSON);
+        Headers headers = new RecordHeaders();
+        publisher.writeHeaders(headers);
+
+        DocumentGenerationMessage decoded = consumer.decode(publisher.encode(message()), headers);
+
+        assertEquals(message(), decoded);
+    }
+
+    @Test
+    void shouldReadJsonWhenHeaderIsMissing() throws IOException {
+        byte[] legacy = objectMapper.writeValueAsBytes(message());
+
+        DocumentGenerationMessage decoded = codec(MessageEncoding.CBOR).decode(legacy, new RecordHeaders());
+
+        assertEquals(message(), decoded);
+    }
+
+    @Test
+    void shouldProduceSmallerBinaryMessages() throws IOException {
+        int json = codec(MessageEncoding.JSON).encode(message()).length;
+
+        assertTrue(codec(MessageEncoding.SMILE).encode(message()).length < json);
+        assertTrue(codec(MessageEncoding.CBOR).encode(message()).length < json);
+    }
+
+    @Test
+    void shouldRejectUnknownContentType() {
+        Headers headers = new RecordHeaders();
+        headers.add(KafkaHeaders.CONTENT_TYPE, "application/avro".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(JsonParseException.class,
+            () -> codec(MessageEncoding.JSON).decode(new byte[0], headers));
+    }
+
+    private DocumentMessageCodec codec(MessageEncoding encoding) {
+        DocumentMessageCodec codec = new DocumentMessageCodec();
+        codec.objectMapper = objectMapper;
+        codec.encoding = encoding;
+        codec.init();
+        return codec;
+    }
+
+    private DocumentGenerationMessage message() {
+        DocumentGenerationMessage message = new DocumentGenerationMessage();
+        message.setEventId("event-1");
+        message.setTemplateName("fatura");
+        message.setCallbackUrl("http://localhost/callback");
+        message.setCallbackDelivery(CallbackDeliveryMode.REFERENCE);
+        message.setData(objectMapper.createObjectNode()
+            .put("nome", "João Silva")
+            .put("valor", 123.45)
+            .put("ativo", true)
+            .set("linhas", objectMapper.createArrayNode()
+                .add(objectMapper.createObjectNode().put("descricao", "Serviço A").put("quantidade", 2))
+                .add(objectMapper.createObjectNode().put("descricao", "Serviço B").put("quantidade", 3))));
+        return message;
+    }
+}
@@ -0,0 +1,35 @@
+package pt.ama.service.kafka;
+
+import org.junit.jupiter.api.Test;
+import pt.ama.exception.DocumentGenerationException;
+import pt.ama.exception.InactiveTemplateException;
+import pt.ama.exception.TemplateNotFoundException;
+import pt.ama.service.kafka.FailureClassifier.FailureType;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FailureClassifierTest {
+
+    @Test
+    void shouldClassifyBusinessExceptionsAsPermanent() {
+        assertEquals(FailureType.PERMANENT, FailureClassifier.classify(new InactiveTemplateException("template")));
+    }
+
+    @Test
+    void shouldClassifyWrappedBusinessCauseAsPermanent() {
+        Exception error = new DocumentGenerationException("template", "falha",
+            new TemplateNotFoundException("template"));
+
+        assertEquals(FailureType.PERMANENT, FailureClassifier.classify(error));
+    }
+
+    @Test
+    void shouldClassifyUnexpectedErrorsAsTransient() {
+        Exception error = new DocumentGenerationException("template", "falha", new IOException("timeout"));
+
+        assertEquals(FailureType.TRANSIENT, FailureClassifier.classify(error));
+        assertEquals(FailureType.TRANSIENT, FailureClassifier.classify(new IllegalStateException("broker")));
+    }
+}
@@ -0,0 +1,39 @@
+package pt.ama.service.kafka;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KafkaTraceHeadersTest {
+
+    private final W3CTraceContextPropagator propagator = W3CTraceContextPropagator.getInstance();
+
+    @Test
+    void shouldPropagateTraceContextThroughRecordHeaders() {
+        SpanContext parent = SpanContext.create("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7",
+                TraceFlags.getSampled(), TraceState.getDefault());
+        Headers headers = new RecordHeaders();
+        KafkaHeaders.set(headers, KafkaHeaders.CONTENT_TYPE, "application/json");
+
+        propagator.inject(Context.root().with(Span.wrap(parent)), headers, KafkaHeaders.TRACE_SETTER);
+        // Reencaminhamento para retry/DLQ: os cabeçalhos são copiados tal como estão
+        Headers forwarded = new RecordHeaders(headers.toArray());
+
+        SpanContext extracted = Span.fromContext(
+                propagator.extract(Context.root(), forwarded, KafkaHeaders.TRACE_GETTER)).getSpanContext();
+
+        assertEquals(parent.getTraceId(), extracted.getTraceId());
+        assertEquals(parent.getSpanId(), extracted.getSpanId());
+        assertTrue(extracted.isRemote());
+        assertEquals("application/json", KafkaHeaders.get(forwarded, KafkaHeaders.CONTENT_TYPE));
+    }
+}
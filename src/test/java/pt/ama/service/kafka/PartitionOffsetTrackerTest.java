@@ -0,0 +1,91 @@
+package pt.ama.service.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionOffsetTrackerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("document-generation", 0);
+
+    private PartitionOffsetTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new PartitionOffsetTracker();
+    }
+
+    @Test
+    void shouldCommitOnlyContiguousCompletedOffsets() {
+        tracker.track(PARTITION, 10);
+        tracker.track(PARTITION, 11);
+        tracker.track(PARTITION, 12);
+
+        tracker.complete(PARTITION, 10, 0);
+        tracker.complete(PARTITION, 12, 0);
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.committableOffsets();
+        assertEquals(11, offsets.get(PARTITION).offset());
+        assertEquals(1, tracker.inFlight());
+
+        tracker.complete(PARTITION, 11, 0);
+
+        offsets = tracker.committableOffsets();
+        assertEquals(13, offsets.get(PARTITION).offset());
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    void shouldNotCommitWhileFirstOffsetIsRunning() {
+        tracker.track(PARTITION, 5);
+        tracker.track(PARTITION, 6);
+        tracker.complete(PARTITION, 6, 0);
+
+        assertTrue(tracker.committableOffsets().isEmpty());
+        assertEquals(1, tracker.inFlight());
+    }
+
+    @Test
+    void shouldForgetRevokedPartitions() {
+        tracker.track(PARTITION, 1);
+        tracker.track(PARTITION, 2);
+        tracker.complete(PARTITION, 1, 0);
+
+        tracker.remove(List.of(PARTITION));
+
+        assertEquals(0, tracker.inFlight());
+        assertTrue(tracker.committableOffsets().isEmpty());
+
+        tracker.complete(PARTITION, 2, 0);
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    void shouldRedeliverFromRewoundOffset() {
+        tracker.track(PARTITION, 1);
+        tracker.track(PARTITION, 2);
+        int generation = tracker.track(PARTITION, 3);
+        tracker.complete(PARTITION, 1, generation);
+        tracker.complete(PARTITION, 3, generation);
+
+        tracker.rewind(PARTITION, 2);
+
+        assertEquals(0, tracker.inFlight());
+        assertEquals(2, tracker.committableOffsets().get(PARTITION).offset());
+
+        // Nova entrega do offset 2; a conclusão tardia da entrega anterior é ignorada
+        int redelivery = tracker.track(PARTITION, 2);
+        tracker.complete(PARTITION, 2, generation);
+        assertEquals(1, tracker.inFlight());
+        assertTrue(tracker.committableOffsets().isEmpty());
+
+        tracker.complete(PARTITION, 2, redelivery);
+        assertEquals(3, tracker.committableOffsets().get(PARTITION).offset());
+    }
+}
@@ -0,0 +1,75 @@
+package pt.ama.service.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.ama.exception.TemplateNotFoundException;
+import pt.ama.model.DocumentType;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private DocumentMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new DocumentMetrics();
+        metrics.meterRegistry = registry;
+        metrics.stageTimings = new StageTimings();
+        metrics.histogramsEnabled = false;
+    }
+
+    @Test
+    void shouldRecordStageTaggedByTemplateAndType() {
+        metrics.recordStage(GenerationStage.RENDER, "fatura", DocumentType.PDF, TimeUnit.MILLISECONDS.toNanos(12));
+        metrics.recordStage(GenerationStage.RENDER, "fatura", DocumentType.PDF, TimeUnit.MILLISECONDS.toNanos(8));
+
+        Timer timer = registry.find(DocumentMetrics.STAGE_TIMER)
+                .tags("stage", "render", "template", "fatura", "type", "PDF")
+                .timer();
+
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+        assertEquals(20, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    void shouldCountBytesAndErrors() {
+        metrics.recordBytes("fatura", DocumentType.PDF, 1024);
+        metrics.recordBytes("fatura", DocumentType.PDF, 512);
+        metrics.recordError(null, new TemplateNotFoundException("inexistente"));
+
+        assertEquals(1536, registry.find(DocumentMetrics.BYTES_COUNTER).tag("template", "fatura").counter().count());
+        assertEquals(1, registry.find(DocumentMetrics.ERRORS_COUNTER)
+                .tags("exception", "TemplateNotFoundException", "template", DocumentMetrics.UNKNOWN)
+                .counter().count());
+    }
+
+    @Test
+    void shouldRecordCallbackOutcome() {
+        metrics.recordCallback("DOCUMENT", "2xx", TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertEquals(1, registry.find(DocumentMetrics.CALLBACK_TIMER)
+                .tags("type", "DOCUMENT", "outcome", "2xx")
+                .timer().count());
+    }
+
+    @Test
+    void shouldFormatServerTimingHeaderInMilliseconds() {
+        StageTimings timings = new StageTimings();
+        timings.add(GenerationStage.RENDER, 2_500_000);
+        timings.add(GenerationStage.RESOLVE, 420_000);
+        timings.add(GenerationStage.RENDER, 500_000);
+
+        assertEquals("resolve;dur=0.42, render;dur=3.00", timings.toHeaderValue());
+        assertTrue(new StageTimings().isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package pt.ama.service.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadLinkSignerTest {
+
+    private static final String ID = "3f2b8c1e-7d4a-4f6b-9a0e-1c2d3e4f5a6b";
+
+    private DownloadLinkSigner signer;
+
+    @BeforeEach
+    void setUp() {
+        signer = new DownloadLinkSigner();
+        signer.baseUrl = "http://localhost:8080/";
+        signer.signingKey = Optional.of("test-key");
+    }
+
+    @Test
+    void shouldBuildVerifiableUrl() {
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        StoredDocument document = new StoredDocument(ID, "doc.pdf", "application/pdf", 10, expiresAt, Path.of(ID));
+
+        String url = signer.signedUrl(document);
+
+        assertTrue(url.startsWith("http://localhost:8080/api/documents/download/" + ID + "?expires="));
+        assertTrue(signer.isValid(ID, expiresAt.getEpochSecond(), signer.sign(ID, expiresAt.getEpochSecond())));
+    }
+
+    @Test
+    void shouldRejectTamperedOrExpiredLinks() {
+        long expires = Instant.now().plusSeconds(3600).getEpochSecond();
+        String signature = signer.sign(ID, expires);
+
+        assertFalse(signer.isValid(ID, expires + 1, signature));
+        assertFalse(signer.isValid("outro-id", expires, signature));
+        assertFalse(signer.isValid(ID, expires, null));
+
+        long expired = Instant.now().minusSeconds(1).getEpochSecond();
+        assertFalse(signer.isValid(ID, expired, signer.sign(ID, expired)));
+    }
+
+    @Test
+    void shouldRejectMissingOrDevelopmentSigningKey() {
+        assertDoesNotThrow(signer::validateSigningKey);
+
+        signer.signingKey = Optional.empty();
+        assertThrows(IllegalStateException.class, signer::validateSigningKey);
+
+        signer.signingKey = Optional.of(DownloadLinkSigner.DEV_SIGNING_KEY);
+        assertThrows(IllegalStateException.class, signer::validateSigningKey);
+    }
+}
@@ -0,0 +1,62 @@
+package pt.ama.service.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentTracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String SPAN_ID = "00f067aa0ba902b7";
+
+    private DocumentTracing tracing;
+
+    @BeforeEach
+    void setUp() {
+        tracing = new DocumentTracing();
+        tracing.openTelemetry = OpenTelemetry.propagating(
+                ContextPropagators.create(W3CTraceContextPropagator.getInstance()));
+        tracing.init();
+    }
+
+    @Test
+    void shouldCaptureAndRestoreCurrentContext() {
+        Map<String, String> captured;
+        try (Scope scope = parentContext().makeCurrent()) {
+            captured = tracing.capture();
+        }
+
+        assertEquals("00-" + TRACE_ID + "-" + SPAN_ID + "-01", captured.get("traceparent"));
+
+        SpanContext restored = Span.fromContext(tracing.restore(captured)).getSpanContext();
+        assertEquals(TRACE_ID, restored.getTraceId());
+        assertEquals(SPAN_ID, restored.getSpanId());
+        assertTrue(restored.isRemote());
+    }
+
+    @Test
+    void shouldIgnoreMissingContext() {
+        assertNull(tracing.capture());
+        assertFalse(Span.fromContext(tracing.restore(null)).getSpanContext().isValid());
+    }
+
+    private static Context parentContext() {
+        return Context.root().with(Span.wrap(SpanContext.create(
+                TRACE_ID, SPAN_ID, TraceFlags.getSampled(), TraceState.getDefault())));
+    }
+}
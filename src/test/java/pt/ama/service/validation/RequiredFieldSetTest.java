@@ -0,0 +1,61 @@
+package pt.ama.service.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequiredFieldSetTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldParseIndicesAndWildcards() {
+        assertEquals(List.of(
+                new RequiredFieldSet.Segment.Field("items"),
+                RequiredFieldSet.Segment.Wildcard.INSTANCE,
+                new RequiredFieldSet.Segment.Field("taxes"),
+                new RequiredFieldSet.Segment.Index(0),
+                new RequiredFieldSet.Segment.Field("rate")
+        ), RequiredFieldSet.parse("items[*].taxes[0].rate"));
+    }
+
+    @Test
+    void shouldTreatMalformedBracketsAsLiteralFieldNames() {
+        assertEquals(List.of(new RequiredFieldSet.Segment.Field("items[x]")), RequiredFieldSet.parse("items[x]"));
+    }
+
+    @Test
+    void shouldReportMissingFieldsInDeclarationOrder() throws Exception {
+        RequiredFieldSet fields = RequiredFieldSet.compile(List.of(
+                "cliente.nome", "cliente.nif", "total", "items[0].price", "items[*].price", "items[*].qty", ""));
+        JsonNode data = objectMapper.readTree("""
+                {"cliente": {"nome": "Ana"},
+                 "total": 10,
+                 "items": [{"price": 1, "qty": 2}, {"price": null, "qty": 1}]}
+                """);
+
+        assertEquals(List.of("cliente.nif", "items[*].price", ""), fields.findMissing(data));
+    }
+
+    @Test
+    void shouldAcceptEmptyArraysForWildcards() throws Exception {
+        RequiredFieldSet fields = RequiredFieldSet.compile(List.of("items[*].price"));
+
+        assertTrue(fields.findMissing(objectMapper.readTree("{\"items\": []}")).isEmpty());
+        assertEquals(List.of("items[*].price"), fields.findMissing(objectMapper.readTree("{\"items\": {}}")));
+    }
+
+    @Test
+    void shouldValidateMapData() {
+        RequiredFieldSet fields = RequiredFieldSet.compile(List.of("items[*].price", "items[1].price"));
+        Map<String, Object> data = Map.of("items", List.of(Map.of("price", 1)));
+
+        assertEquals(List.of("items[1].price"), fields.findMissing(data));
+    }
+}
@@ -1,5 +1,7 @@
 package pt.ama.service.validation;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import pt.ama.exception.RequiredFieldsValidationException;
@@ -139,4 +141,35 @@ class RequiredFieldsValidatorTest {
 
         assertTrue(exception.getMissingFields().contains("email"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldPassValidationForNestedFieldsInJsonData() throws Exception {
+        Template.TemplateMetadata metadata = new Template.TemplateMetadata();
+        metadata.setRequiredFields(Arrays.asList("user.name", "user.address.city"));
+        template.setMetadata(metadata);
+
+        JsonNode data = new ObjectMapper().readTree("""
+                {"user": {"name": "João Silva", "address": {"city": "Lisboa"}}}
+                """);
+
+        assertDoesNotThrow(() -> validator.validateRequiredFields(template, data));
+    }
+
+    @Test
+    void shouldReportMissingAndNullFieldsInJsonData() throws Exception {
+        Template.TemplateMetadata metadata = new Template.TemplateMetadata();
+        metadata.setRequiredFields(Arrays.asList("user.name", "user.address.city", "email"));
+        template.setMetadata(metadata);
+
+        JsonNode data = new ObjectMapper().readTree("""
+                {"user": {"name": "João Silva", "address": "Lisboa"}, "email": null}
+                """);
+
+        RequiredFieldsValidationException exception = assertThrows(
+                RequiredFieldsValidationException.class,
+                () -> validator.validateRequiredFields(template, data)
+        );
+
+        assertEquals(List.of("user.address.city", "email"), exception.getMissingFields());
+    }
+}
@@ -0,0 +1,86 @@
+package pt.ama.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+import pt.ama.dto.DocumentRequest;
+import pt.ama.exception.DataLimitExceededException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedJsonNodeDeserializerTest {
+
+    private final ObjectMapper objectMapper = mapper(new BoundedJsonNodeDeserializer.Limits(1_000, 3, 5, 20));
+
+    @Test
+    void shouldReadDataWithinLimits() throws Exception {
+        String json = "{\"nome\": \"Ana\", \"valor\": 12.5, \"linhas\": [1, 2, {\"ok\": true}], \"nulo\": null}";
+
+        JsonNode data = read(json);
+
+        assertEquals(new ObjectMapper().readTree(json), data);
+    }
+
+    @Test
+    void shouldRejectDeepNesting() {
+        DataLimitExceededException e = assertThrows(DataLimitExceededException.class,
+                () -> read("{\"a\": {\"b\": {\"c\": {\"d\": 1}}}}"));
+
+        assertTrue(e.getOriginalMessage().contains("profundidade"));
+    }
+
+    @Test
+    void shouldRejectLongArrays() {
+        assertThrows(DataLimitExceededException.class, () -> read("{\"a\": [1, 2, 3, 4, 5, 6]}"));
+    }
+
+    @Test
+    void shouldRejectLongStrings() {
+        assertThrows(DataLimitExceededException.class, () -> read("{\"a\": \"" + "x".repeat(21) + "\"}"));
+    }
+
+    @Test
+    void shouldRejectOversizedData() {
+        String json = "{\"a\": [\"" + "x".repeat(20) + "\"], \"b\": \"" + "y".repeat(20) + "\"}";
+        ObjectMapper mapper = mapper(new BoundedJsonNodeDeserializer.Limits(40, 3, 5, 20));
+
+        assertThrows(DataLimitExceededException.class,
+                () -> mapper.readValue(json.getBytes(StandardCharsets.UTF_8), JsonNode.class));
+    }
+
+    @Test
+    void shouldRejectWideObjectBeforeReachingItsEnd() {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < 500; i++) {
+            json.append("\"campo").append(i).append("\": ").append(i).append(", ");
+        }
+        // Input inválido no fim: só é rejeitado pelo limite de tamanho se este for verificado antes
+        json.append("]");
+
+        DataLimitExceededException e = assertThrows(DataLimitExceededException.class, () -> read(json.toString()));
+
+        assertTrue(e.getOriginalMessage().contains("tamanho"));
+    }
+
+    @Test
+    void shouldApplyToRequestDataField() throws Exception {
+        DocumentRequest request = new ObjectMapper().readValue(
+                "{\"templateName\": \"t\", \"data\": {\"nome\": \"Ana\"}}", DocumentRequest.class);
+
+        assertEquals("Ana", request.getData().get("nome").asText());
+    }
+
+    private JsonNode read(String json) throws Exception {
+        return objectMapper.readValue(json.getBytes(StandardCharsets.UTF_8), JsonNode.class);
+    }
+
+    private static ObjectMapper mapper(BoundedJsonNodeDeserializer.Limits limits) {
+        return new ObjectMapper().registerModule(
+                new SimpleModule().addDeserializer(JsonNode.class, new BoundedJsonNodeDeserializer(limits)));
+    }
+}
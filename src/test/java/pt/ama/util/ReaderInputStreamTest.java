@@ -0,0 +1,47 @@
+package pt.ama.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReaderInputStreamTest {
+
+    @Test
+    void shouldEncodeReaderContentAsUtf8() throws IOException {
+        String content = "<p>Emissão de certidão € 😀</p>".repeat(2_000);
+
+        try (InputStream input = new ReaderInputStream(new StringReader(content), StandardCharsets.UTF_8)) {
+            assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), input.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldReturnEndOfStreamForEmptyReader() throws IOException {
+        try (InputStream input = new ReaderInputStream(new StringReader(""), StandardCharsets.UTF_8)) {
+            assertEquals(-1, input.read());
+        }
+    }
+
+    @Test
+    void shouldRejectContentBeyondCharacterLimit() throws IOException {
+        String content = "x".repeat(20_000);
+
+        try (InputStream input = new ReaderInputStream(new StringReader(content), StandardCharsets.UTF_8,
+                content.length(), "limite")) {
+            assertEquals(content.length(), input.readAllBytes().length);
+        }
+
+        try (InputStream input = new ReaderInputStream(new StringReader(content), StandardCharsets.UTF_8,
+                content.length() - 1, "limite")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, input::readAllBytes);
+            assertEquals("limite", e.getMessage());
+        }
+    }
+}